@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class NetworkGenerator {
+
+    private final int trainCount;
+    private final int stopsPerTrain;
+    private final int stationCount;
+    private final double hubDensity;
+    private final long seed;
+
+    public NetworkGenerator(int trainCount, int stopsPerTrain, int stationCount, double hubDensity, long seed) {
+        this.trainCount = trainCount;
+        this.stopsPerTrain = stopsPerTrain;
+        this.stationCount = stationCount;
+        this.hubDensity = hubDensity;
+        this.seed = seed;
+    }
+
+    public static String stationName(int station) {
+        return "Station " + station;
+    }
+
+    public List<Train> generate() {
+        return generate(false);
+    }
+
+    public List<Train> generate(boolean timetabled) {
+        Random random = new Random(seed);
+        Random times = new Random(seed + 1);
+        int hubCount = Math.max(1, stationCount / 100);
+        int stops = Math.min(stopsPerTrain, stationCount);
+        List<Train> trains = new ArrayList<>(trainCount);
+
+        for (int t = 0; t < trainCount; t++) {
+            Set<Integer> used = new HashSet<>();
+            List<String> stations = new ArrayList<>(stops);
+            while (stations.size() < stops) {
+                int station = random.nextDouble() < hubDensity
+                        ? random.nextInt(hubCount)
+                        : hubCount + random.nextInt(Math.max(1, stationCount - hubCount));
+                if (used.add(station)) {
+                    stations.add(stationName(station));
+                }
+            }
+            trains.add(timetabled ? timetable("Train " + t, stations, times) : new Train("Train " + t, stations));
+        }
+        return trains;
+    }
+
+    private static Train timetable(String name, List<String> stations, Random random) {
+        List<String> stops = new ArrayList<>(stations.size());
+        int time = 5 * 60 + random.nextInt(17 * 60);
+        for (String station : stations) {
+            int arrival = time;
+            time += 1;
+            stops.add(station + "|" + Timetable.formatTime(arrival) + "|" + Timetable.formatTime(time));
+            time += 3 + random.nextInt(13);
+        }
+        return Train.parse(name, stops);
+    }
+
+    public TrainManager populate() {
+        return populate(false);
+    }
+
+    public TrainManager populate(boolean timetabled) {
+        TrainManager manager = TrainManager.inMemory();
+        for (Train train : generate(timetabled)) {
+            manager.addTrain(train);
+        }
+        return manager;
+    }
+
+    public String[] randomStations(int count, long querySeed) {
+        Random random = new Random(querySeed);
+        String[] stations = new String[count];
+        for (int i = 0; i < count; i++) {
+            stations[i] = stationName(random.nextInt(stationCount));
+        }
+        return stations;
+    }
+}
@@ -0,0 +1,269 @@
+import trainmanager.benchmarks.Workload;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class TrainManagerWorkload implements Workload {
+
+    private static final int QUERY_POOL = 1024;
+    private static final int MAX_TRANSFERS = 3;
+    private static final int PAGE_SIZE = 50;
+    private static final int HUB_LIMIT = 10;
+    private static final int MATRIX_TRAINS = 1000;
+
+    private NetworkGenerator generator;
+    private TrainManager manager;
+    private NetworkSnapshot snapshot;
+    private TrainManager timetabled;
+    private TrainManager matrixManager;
+    private String[] from;
+    private String[] to;
+    private String[] matrixFrom;
+    private String[] matrixTo;
+    private int[] departAfter;
+    private byte[][] trainNames;
+    private List<?>[] trainStops;
+    private long estimatedTrainBytes;
+    private Train extra;
+    private Train extraUpdated;
+    private Random random;
+    private Path directory;
+    private Path textFile;
+    private Path snapshotFile;
+    private Path csvFile;
+
+    @Override
+    public void setUp(int trains, int stopsPerTrain, double hubDensity) throws IOException {
+        generator = new NetworkGenerator(trains, stopsPerTrain, Math.max(100, trains * 2), hubDensity, 42);
+        manager = generator.populate();
+        snapshot = NetworkSnapshot.of(manager);
+        timetabled = generator.populate(true);
+        from = generator.randomStations(QUERY_POOL, 1);
+        to = generator.randomStations(QUERY_POOL, 2);
+        departAfter = new int[QUERY_POOL];
+        Random times = new Random(3);
+        for (int i = 0; i < QUERY_POOL; i++) {
+            departAfter[i] = 6 * 60 + times.nextInt(14 * 60);
+        }
+
+        NetworkGenerator matrixGenerator = trains <= MATRIX_TRAINS ? generator
+                : new NetworkGenerator(MATRIX_TRAINS, stopsPerTrain, MATRIX_TRAINS * 2, hubDensity, 42);
+        matrixManager = matrixGenerator == generator ? manager : matrixGenerator.populate();
+        matrixManager.getTransferMatrix();
+        matrixFrom = matrixGenerator.randomStations(QUERY_POOL, 1);
+        matrixTo = matrixGenerator.randomStations(QUERY_POOL, 2);
+        trainNames = new byte[QUERY_POOL][];
+        trainStops = new List<?>[QUERY_POOL];
+        estimatedTrainBytes = 0;
+        for (int i = 0; i < QUERY_POOL; i++) {
+            Train train = manager.getTrains().get(i % manager.getTrains().size());
+            trainNames[i] = train.getName().getBytes(StandardCharsets.ISO_8859_1);
+            trainStops[i] = List.copyOf(train.getStations());
+            estimatedTrainBytes += train.getHeapBytes();
+        }
+        estimatedTrainBytes /= QUERY_POOL;
+        extra = new Train("Benchmark Extra", Arrays.asList(
+                NetworkGenerator.stationName(0), NetworkGenerator.stationName(1), NetworkGenerator.stationName(2)));
+        extraUpdated = new Train("Benchmark Extra", Arrays.asList(
+                NetworkGenerator.stationName(2), NetworkGenerator.stationName(3), NetworkGenerator.stationName(4)));
+        random = new Random(7);
+
+        directory = Files.createTempDirectory("train-bench");
+        textFile = directory.resolve("trains.txt");
+        snapshotFile = directory.resolve("trains.bin");
+        manager.exportToText(textFile);
+        TrainSnapshot.write(snapshotFile, manager.getTrains());
+        csvFile = directory.resolve("trains.csv");
+        writeCsv(csvFile, timetabled.getTrains());
+    }
+
+    private static void writeCsv(Path path, List<Train> trains) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            writer.println("trip_id,stop_sequence,stop_name,arrival_time,departure_time");
+            for (Train train : trains) {
+                Timetable timetable = train.getTimetable();
+                List<String> stations = train.getStations();
+                for (int i = 0; i < stations.size(); i++) {
+                    writer.println(train.getName() + "," + (i + 1) + "," + stations.get(i) + ","
+                            + Timetable.formatTime(timetable.getArrival(i)) + ","
+                            + Timetable.formatTime(timetable.getDeparture(i)));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Override
+    public int queryCount() {
+        return QUERY_POOL;
+    }
+
+    @Override
+    public Object findTrainsByStation(int query) {
+        return manager.findTrainsByStation(from[query]);
+    }
+
+    @Override
+    public Object findDirectRoute(int query) {
+        return manager.findDirectRoute(from[query], to[query]);
+    }
+
+    @Override
+    public Object findRouteWithOneTransfer(int query) {
+        return manager.findRouteWithOneTransfer(from[query], to[query]);
+    }
+
+    @Override
+    public Object findJourneys(int query) {
+        return manager.findJourneys(from[query], to[query], MAX_TRANSFERS);
+    }
+
+    @Override
+    public Object findJourneysSnapshot(int query) {
+        return snapshot.findJourneys(from[query], to[query], MAX_TRANSFERS);
+    }
+
+    @Override
+    public Object findEarliestArrival(int query) {
+        return timetabled.findEarliestArrival(from[query], to[query], query % 7, departAfter[query]);
+    }
+
+    @Override
+    public Object getMinimumTrains(int query) {
+        return matrixManager.getMinimumTrains(matrixFrom[query], matrixTo[query]);
+    }
+
+    @Override
+    public Object areConnected(int query) {
+        return manager.areConnected(from[query], to[query]);
+    }
+
+    @Override
+    public Object findHubs() {
+        return StationHubs.byBetweenness(manager.getRoutingNetwork(), HUB_LIMIT, StationHubs.DEFAULT_MAX_SOURCES);
+    }
+
+    @Override
+    public Object findDirectRouteSnapshot(int query) {
+        return snapshot.findDirectRoute(from[query], to[query]);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object constructTrain(int query) {
+        return new Train(new String(trainNames[query], StandardCharsets.ISO_8859_1), (List<String>) trainStops[query]);
+    }
+
+    @Override
+    public long estimatedTrainBytes() {
+        return estimatedTrainBytes;
+    }
+
+    @Override
+    public Object addAndRemoveTrain() {
+        boolean added = manager.addTrain(extra);
+        manager.removeTrain(extra.getName());
+        return added;
+    }
+
+    @Override
+    public Object updateTrain() {
+        manager.addTrain(extra);
+        manager.updateTrain(extra.getName(), extraUpdated);
+        manager.removeTrain(extraUpdated.getName());
+        return manager;
+    }
+
+    @Override
+    public Object rebuildRoutingNetwork() {
+        manager.addTrain(extra);
+        manager.removeTrain(extra.getName());
+        return manager.getRoutingNetwork();
+    }
+
+    @Override
+    public Object populate() {
+        return generator.populate();
+    }
+
+    @Override
+    public void shuffle() {
+        Collections.shuffle(manager.getTrains(), random);
+    }
+
+    @Override
+    public Object sortTrainsByName() {
+        manager.sortTrainsByName();
+        return manager;
+    }
+
+    @Override
+    public Object sortByNumberOfStops() {
+        manager.sortByNumberOfStops();
+        return manager;
+    }
+
+    @Override
+    public Object findTransfersFrom(int query) {
+        return snapshot.findTransfersFrom(from[query], MAX_TRANSFERS);
+    }
+
+    @Override
+    public Object findTransfers() {
+        return snapshot.findTransfers(Arrays.asList(from), Arrays.asList(to), MAX_TRANSFERS);
+    }
+
+    @Override
+    public Object pageSortedView(int query) {
+        SortedTrainView view = manager.getSortedView(TrainOrder.values()[query % TrainOrder.values().length]);
+        return view.page((int) ((long) query * view.size() / QUERY_POOL), PAGE_SIZE);
+    }
+
+    @Override
+    public Object loadText() throws IOException {
+        TrainManager loaded = TrainManager.inMemory();
+        loaded.importFromText(textFile);
+        return loaded;
+    }
+
+    @Override
+    public Object loadSnapshot() throws IOException {
+        TrainManager loaded = TrainManager.inMemory();
+        TrainSnapshot.read(snapshotFile, loaded::addTrain);
+        return loaded;
+    }
+
+    @Override
+    public Object importFromCsv() throws IOException {
+        TrainManager loaded = TrainManager.inMemory();
+        loaded.importFromCsv(csvFile);
+        return loaded;
+    }
+
+    @Override
+    public Object saveText() throws IOException {
+        manager.exportToText(directory.resolve("export.txt"));
+        return directory;
+    }
+
+    @Override
+    public Object saveSnapshot() throws IOException {
+        TrainSnapshot.write(directory.resolve("save.bin"), manager.getTrains());
+        return directory;
+    }
+}
@@ -0,0 +1,40 @@
+package trainmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseCompressedOops")
+@State(Scope.Thread)
+public class FootprintBenchmark {
+
+    private WorkloadState state;
+
+    @Benchmark
+    public Object constructTrain(WorkloadState state) {
+        this.state = state;
+        return state.workload.constructTrain(state.nextQuery());
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        if (state != null) {
+            System.out.println("Train.getHeapBytes: " + state.workload.estimatedTrainBytes()
+                    + " bytes per train, compare with gc.alloc.rate.norm");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package trainmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutationBenchmark {
+
+    @Benchmark
+    public Object addAndRemoveTrain(WorkloadState state) {
+        return state.workload.addAndRemoveTrain();
+    }
+
+    @Benchmark
+    public Object updateTrain(WorkloadState state) {
+        return state.workload.updateTrain();
+    }
+
+    @Benchmark
+    public Object rebuildRoutingNetwork(WorkloadState state) {
+        return state.workload.rebuildRoutingNetwork();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public Object populate(WorkloadState state) {
+        return state.workload.populate();
+    }
+}
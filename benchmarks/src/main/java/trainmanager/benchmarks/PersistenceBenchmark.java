@@ -0,0 +1,44 @@
+package trainmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    @Benchmark
+    public Object loadText(WorkloadState state) throws Exception {
+        return state.workload.loadText();
+    }
+
+    @Benchmark
+    public Object loadSnapshot(WorkloadState state) throws Exception {
+        return state.workload.loadSnapshot();
+    }
+
+    @Benchmark
+    public Object saveText(WorkloadState state) throws Exception {
+        return state.workload.saveText();
+    }
+
+    @Benchmark
+    public Object saveSnapshot(WorkloadState state) throws Exception {
+        return state.workload.saveSnapshot();
+    }
+
+    @Benchmark
+    public Object importFromCsv(WorkloadState state) throws Exception {
+        return state.workload.importFromCsv();
+    }
+}
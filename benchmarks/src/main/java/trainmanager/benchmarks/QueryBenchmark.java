@@ -0,0 +1,87 @@
+package trainmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Benchmark
+    public Object findTrainsByStation(WorkloadState state) {
+        return state.workload.findTrainsByStation(state.nextQuery());
+    }
+
+    @Benchmark
+    public Object findDirectRoute(WorkloadState state) {
+        return state.workload.findDirectRoute(state.nextQuery());
+    }
+
+    @Benchmark
+    public Object findRouteWithOneTransfer(WorkloadState state) {
+        return state.workload.findRouteWithOneTransfer(state.nextQuery());
+    }
+
+    @Benchmark
+    public Object findJourneys(WorkloadState state) {
+        return state.workload.findJourneys(state.nextQuery());
+    }
+
+    @Benchmark
+    public Object findJourneysSnapshot(WorkloadState state) {
+        return state.workload.findJourneysSnapshot(state.nextQuery());
+    }
+
+    @Benchmark
+    public Object findEarliestArrival(WorkloadState state) {
+        return state.workload.findEarliestArrival(state.nextQuery());
+    }
+
+    @Benchmark
+    public Object getMinimumTrains(WorkloadState state) {
+        return state.workload.getMinimumTrains(state.nextQuery());
+    }
+
+    @Benchmark
+    public Object areConnected(WorkloadState state) {
+        return state.workload.areConnected(state.nextQuery());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public Object findHubs(WorkloadState state) {
+        return state.workload.findHubs();
+    }
+
+    @Benchmark
+    public Object pageSortedView(WorkloadState state) {
+        return state.workload.pageSortedView(state.nextQuery());
+    }
+
+    @Benchmark
+    public Object findTransfersFrom(WorkloadState state) {
+        return state.workload.findTransfersFrom(state.nextQuery());
+    }
+
+    @Benchmark
+    public Object findTransfersBatch(WorkloadState state) {
+        return state.workload.findTransfers();
+    }
+
+    @Benchmark
+    public Object findDirectRouteSnapshot(WorkloadState state) {
+        return state.workload.findDirectRouteSnapshot(state.nextQuery());
+    }
+}
@@ -0,0 +1,42 @@
+package trainmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class SortBenchmark {
+
+    private WorkloadState state;
+
+    @Setup(Level.Invocation)
+    public void shuffle(WorkloadState state) {
+        this.state = state;
+        state.workload.shuffle();
+    }
+
+    @Benchmark
+    public Object sortTrainsByName() {
+        return state.workload.sortTrainsByName();
+    }
+
+    @Benchmark
+    public Object sortByNumberOfStops() {
+        return state.workload.sortByNumberOfStops();
+    }
+}
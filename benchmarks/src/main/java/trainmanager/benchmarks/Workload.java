@@ -0,0 +1,74 @@
+package trainmanager.benchmarks;
+
+public interface Workload {
+
+    String IMPLEMENTATION = "TrainManagerWorkload";
+
+    void setUp(int trains, int stopsPerTrain, double hubDensity) throws Exception;
+
+    void tearDown() throws Exception;
+
+    int queryCount();
+
+    Object findTrainsByStation(int query);
+
+    Object findDirectRoute(int query);
+
+    Object findRouteWithOneTransfer(int query);
+
+    Object findJourneys(int query);
+
+    Object findJourneysSnapshot(int query);
+
+    Object findEarliestArrival(int query);
+
+    Object getMinimumTrains(int query);
+
+    Object areConnected(int query);
+
+    Object findHubs();
+
+    Object findDirectRouteSnapshot(int query);
+
+    Object findTransfersFrom(int query);
+
+    Object findTransfers();
+
+    Object constructTrain(int query);
+
+    long estimatedTrainBytes();
+
+    Object addAndRemoveTrain();
+
+    Object updateTrain();
+
+    Object rebuildRoutingNetwork();
+
+    Object populate();
+
+    void shuffle();
+
+    Object sortTrainsByName();
+
+    Object sortByNumberOfStops();
+
+    Object pageSortedView(int query);
+
+    Object loadText() throws Exception;
+
+    Object loadSnapshot() throws Exception;
+
+    Object saveText() throws Exception;
+
+    Object saveSnapshot() throws Exception;
+
+    Object importFromCsv() throws Exception;
+
+    static Workload create() {
+        try {
+            return (Workload) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + IMPLEMENTATION, e);
+        }
+    }
+}
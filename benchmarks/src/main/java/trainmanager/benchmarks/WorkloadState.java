@@ -0,0 +1,40 @@
+package trainmanager.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+@State(Scope.Benchmark)
+public class WorkloadState {
+
+    @Param({"1000", "20000"})
+    public int trains;
+
+    @Param({"12"})
+    public int stopsPerTrain;
+
+    @Param({"0.2"})
+    public double hubDensity;
+
+    public Workload workload;
+    private int nextQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workload = Workload.create();
+        workload.setUp(trains, stopsPerTrain, hubDensity);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workload.tearDown();
+    }
+
+    public int nextQuery() {
+        nextQuery = (nextQuery + 1) % workload.queryCount();
+        return nextQuery;
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+public class ConcurrentTrainManager {
+
+    private static final class PendingWrite<R> {
+        private final Function<TrainManager, R> operation;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private R value;
+        private RuntimeException failure;
+
+        PendingWrite(Function<TrainManager, R> operation) {
+            this.operation = operation;
+        }
+
+        void apply(TrainManager manager) {
+            try {
+                value = operation.apply(manager);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+
+        void complete() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+
+    private final TrainManager manager;
+    private final Queue<PendingWrite<?>> pendingWrites;
+    private final Object writeLock;
+    private volatile NetworkSnapshot snapshot;
+
+    public ConcurrentTrainManager(TrainManager manager) {
+        this.manager = manager;
+        this.pendingWrites = new ConcurrentLinkedQueue<>();
+        this.writeLock = new Object();
+        this.snapshot = NetworkSnapshot.of(manager);
+    }
+
+    public NetworkSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public List<Train> getTrains() {
+        return snapshot.getTrains();
+    }
+
+    public TrainMetrics getMetrics() {
+        return manager.getMetrics();
+    }
+
+    public List<Train> findTrainsByStation(String stationName) {
+        long started = System.nanoTime();
+        List<Train> result = snapshot.findTrainsByStation(stationName);
+        getMetrics().record(TrainMetrics.Operation.FIND_TRAINS_BY_STATION, started, stationName, null);
+        return result;
+    }
+
+    public Train findDirectRoute(String start, String end) {
+        long started = System.nanoTime();
+        Train result = snapshot.findDirectRoute(start, end);
+        getMetrics().record(TrainMetrics.Operation.FIND_DIRECT_ROUTE, started, start, end);
+        return result;
+    }
+
+    public List<Journey> findJourneys(String start, String end, int maxTransfers) {
+        long started = System.nanoTime();
+        List<Journey> result = snapshot.findJourneys(start, end, maxTransfers);
+        getMetrics().record(TrainMetrics.Operation.FIND_JOURNEYS, started, start, end);
+        return result;
+    }
+
+    public RouteMatrix findTransfersFrom(String origin, int maxTransfers) {
+        long started = System.nanoTime();
+        RouteMatrix result = snapshot.findTransfersFrom(origin, maxTransfers);
+        getMetrics().record(TrainMetrics.Operation.FIND_TRANSFERS, started, origin, null);
+        return result;
+    }
+
+    public RouteMatrix findTransferMatrix(List<String> origins, List<String> destinations, int maxTransfers) {
+        long started = System.nanoTime();
+        RouteMatrix result = snapshot.findTransferMatrix(origins, destinations, maxTransfers);
+        getMetrics().record(TrainMetrics.Operation.FIND_TRANSFERS, started);
+        return result;
+    }
+
+    public byte[] findTransfers(List<String> from, List<String> to, int maxTransfers) {
+        long started = System.nanoTime();
+        byte[] result = snapshot.findTransfers(from, to, maxTransfers);
+        getMetrics().record(TrainMetrics.Operation.FIND_TRANSFERS, started);
+        return result;
+    }
+
+    public Journey findEarliestArrival(String start, String end, int day, int departAfter) {
+        long started = System.nanoTime();
+        Journey result = snapshot.findEarliestArrival(start, end, day, departAfter);
+        getMetrics().record(TrainMetrics.Operation.FIND_EARLIEST_ARRIVAL, started, start, end);
+        return result;
+    }
+
+    public boolean areConnected(String start, String end) {
+        return snapshot.areConnected(start, end);
+    }
+
+    public List<StationHubs.Hub> findHubs(int limit) {
+        long started = System.nanoTime();
+        List<StationHubs.Hub> result = snapshot.findHubs(limit);
+        getMetrics().record(TrainMetrics.Operation.FIND_HUBS, started);
+        return result;
+    }
+
+    public Map<String, Integer> getMinimumTransferTimes() {
+        return snapshot.getMinimumTransferTimes();
+    }
+
+    public void setMinimumTransferTime(String station, int minutes) {
+        submit(m -> {
+            m.setMinimumTransferTime(station, minutes);
+            return null;
+        }).join();
+    }
+
+    public List<Train> findRouteWithOneTransfer(String start, String end) {
+        return snapshot.findRouteWithOneTransfer(start, end);
+    }
+
+    public boolean addTrain(Train train) {
+        return submit(m -> m.addTrain(train)).join();
+    }
+
+    public void removeTrain(String trainName) {
+        submit(m -> {
+            m.removeTrain(trainName);
+            return null;
+        }).join();
+    }
+
+    public boolean updateTrain(String oldTrainName, Train newTrain) {
+        return submit(m -> m.updateTrain(oldTrainName, newTrain)).join();
+    }
+
+    public <R> CompletableFuture<R> submit(Function<TrainManager, R> operation) {
+        PendingWrite<R> write = new PendingWrite<>(operation);
+        pendingWrites.add(write);
+        drain();
+        return write.result;
+    }
+
+    private void drain() {
+        synchronized (writeLock) {
+            if (pendingWrites.isEmpty()) {
+                return;
+            }
+            List<PendingWrite<?>> batch = new ArrayList<>();
+            PendingWrite<?> write;
+            while ((write = pendingWrites.poll()) != null) {
+                write.apply(manager);
+                batch.add(write);
+            }
+            snapshot = NetworkSnapshot.of(manager);
+            for (PendingWrite<?> applied : batch) {
+                applied.complete();
+            }
+        }
+    }
+}
\ No newline at end of file
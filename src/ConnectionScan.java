@@ -0,0 +1,107 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ConnectionScan {
+
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private int[] earliest = new int[0];
+    private int[] stationStamp = new int[0];
+    private int[] arrivedBy = new int[0];
+    private int[] boardedAt = new int[0];
+    private int[] trainStamp = new int[0];
+    private int[] trainBoardedAt = new int[0];
+    private int epoch;
+
+    public Journey earliestArrival(ConnectionTable table, String start, String end, int day, int departAfter) {
+        RoutingNetwork network = table.getNetwork();
+        int from = network.findStation(start);
+        int to = network.findStation(end);
+        if (from == -1 || to == -1 || from == to) {
+            return null;
+        }
+
+        ensureCapacity(network.getStationCount(), network.getTrainCount());
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stationStamp, 0);
+            Arrays.fill(trainStamp, 0);
+            epoch = 1;
+        }
+        reach(from, departAfter, -1, -1);
+
+        for (int c = table.firstDepartingAt(departAfter); c < table.size(); c++) {
+            int departure = table.getDepartureTime(c);
+            if (departure >= arrival(to)) {
+                break;
+            }
+            if (!table.runsOn(c, day)) {
+                continue;
+            }
+
+            int train = table.getTrain(c);
+            if (trainStamp[train] != epoch) {
+                int station = table.getDepartureStation(c);
+                int ready = arrival(station);
+                if (ready == UNREACHED) {
+                    continue;
+                }
+                if (station != from) {
+                    ready += table.getTransferMinutes(station);
+                }
+                if (ready > departure) {
+                    continue;
+                }
+                trainStamp[train] = epoch;
+                trainBoardedAt[train] = c;
+            }
+
+            int station = table.getArrivalStation(c);
+            if (table.getArrivalTime(c) < arrival(station)) {
+                reach(station, table.getArrivalTime(c), c, trainBoardedAt[train]);
+            }
+        }
+
+        return arrival(to) == UNREACHED ? null : reconstruct(table, from, to);
+    }
+
+    private int arrival(int station) {
+        return stationStamp[station] == epoch ? earliest[station] : UNREACHED;
+    }
+
+    private void reach(int station, int time, int connection, int boarded) {
+        stationStamp[station] = epoch;
+        earliest[station] = time;
+        arrivedBy[station] = connection;
+        boardedAt[station] = boarded;
+    }
+
+    private Journey reconstruct(ConnectionTable table, int from, int to) {
+        RoutingNetwork network = table.getNetwork();
+        List<Journey.Leg> legs = new ArrayList<>();
+        int station = to;
+        while (station != from) {
+            int alight = arrivedBy[station];
+            int board = boardedAt[station];
+            legs.add(new Journey.Leg(network.getTrain(table.getTrain(alight)),
+                    table.getPosition(board), table.getPosition(alight) + 1));
+            station = table.getDepartureStation(board);
+        }
+        Collections.reverse(legs);
+        return new Journey(legs);
+    }
+
+    private void ensureCapacity(int stationCount, int trainCount) {
+        if (earliest.length < stationCount) {
+            earliest = new int[stationCount];
+            stationStamp = new int[stationCount];
+            arrivedBy = new int[stationCount];
+            boardedAt = new int[stationCount];
+        }
+        if (trainStamp.length < trainCount) {
+            trainStamp = new int[trainCount];
+            trainBoardedAt = new int[trainCount];
+        }
+    }
+}
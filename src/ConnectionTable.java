@@ -0,0 +1,146 @@
+import java.util.Arrays;
+import java.util.Map;
+
+public class ConnectionTable {
+
+    public static final int DEFAULT_TRANSFER_MINUTES = 5;
+
+    private final RoutingNetwork network;
+    private final int[] departureStations;
+    private final int[] arrivalStations;
+    private final int[] departureTimes;
+    private final int[] arrivalTimes;
+    private final int[] trains;
+    private final int[] positions;
+    private final byte[] serviceDays;
+    private final int[] transferMinutes;
+
+    private ConnectionTable(RoutingNetwork network, int[] departureStations, int[] arrivalStations,
+            int[] departureTimes, int[] arrivalTimes, int[] trains, int[] positions, byte[] serviceDays,
+            int[] transferMinutes) {
+        this.network = network;
+        this.departureStations = departureStations;
+        this.arrivalStations = arrivalStations;
+        this.departureTimes = departureTimes;
+        this.arrivalTimes = arrivalTimes;
+        this.trains = trains;
+        this.positions = positions;
+        this.serviceDays = serviceDays;
+        this.transferMinutes = transferMinutes;
+    }
+
+    public static ConnectionTable build(RoutingNetwork network, Map<String, Integer> transferTimes) {
+        int count = 0;
+        for (int t = 0; t < network.getTrainCount(); t++) {
+            if (network.getTrain(t).isTimetabled()) {
+                count += network.getTrainStops(t).length - 1;
+            }
+        }
+
+        long[] order = new long[count];
+        int[] unsortedTrains = new int[count];
+        int[] unsortedPositions = new int[count];
+        int c = 0;
+        for (int t = 0; t < network.getTrainCount(); t++) {
+            Timetable timetable = network.getTrain(t).getTimetable();
+            if (timetable == null) {
+                continue;
+            }
+            for (int i = 0; i < timetable.getStopCount() - 1; i++) {
+                order[c] = ((long) timetable.getDeparture(i) << 32) | c;
+                unsortedTrains[c] = t;
+                unsortedPositions[c] = i;
+                c++;
+            }
+        }
+        Arrays.sort(order);
+
+        int[] departureStations = new int[count];
+        int[] arrivalStations = new int[count];
+        int[] departureTimes = new int[count];
+        int[] arrivalTimes = new int[count];
+        int[] trains = new int[count];
+        int[] positions = new int[count];
+        byte[] serviceDays = new byte[count];
+        for (int i = 0; i < count; i++) {
+            int source = (int) order[i];
+            int train = unsortedTrains[source];
+            int position = unsortedPositions[source];
+            int[] stops = network.getTrainStops(train);
+            Timetable timetable = network.getTrain(train).getTimetable();
+            departureStations[i] = stops[position];
+            arrivalStations[i] = stops[position + 1];
+            departureTimes[i] = timetable.getDeparture(position);
+            arrivalTimes[i] = timetable.getArrival(position + 1);
+            trains[i] = train;
+            positions[i] = position;
+            serviceDays[i] = (byte) timetable.getServiceDays();
+        }
+
+        int[] transferMinutes = new int[network.getStationCount()];
+        Arrays.fill(transferMinutes, DEFAULT_TRANSFER_MINUTES);
+        for (Map.Entry<String, Integer> entry : transferTimes.entrySet()) {
+            int station = network.findStation(entry.getKey());
+            if (station != -1) {
+                transferMinutes[station] = entry.getValue();
+            }
+        }
+
+        return new ConnectionTable(network, departureStations, arrivalStations, departureTimes, arrivalTimes,
+                trains, positions, serviceDays, transferMinutes);
+    }
+
+    public RoutingNetwork getNetwork() {
+        return network;
+    }
+
+    public int size() {
+        return departureTimes.length;
+    }
+
+    public int firstDepartingAt(int time) {
+        int low = 0;
+        int high = departureTimes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departureTimes[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int getDepartureStation(int connection) {
+        return departureStations[connection];
+    }
+
+    public int getArrivalStation(int connection) {
+        return arrivalStations[connection];
+    }
+
+    public int getDepartureTime(int connection) {
+        return departureTimes[connection];
+    }
+
+    public int getArrivalTime(int connection) {
+        return arrivalTimes[connection];
+    }
+
+    public int getTrain(int connection) {
+        return trains[connection];
+    }
+
+    public int getPosition(int connection) {
+        return positions[connection];
+    }
+
+    public boolean runsOn(int connection, int day) {
+        return (serviceDays[connection] & (1 << day)) != 0;
+    }
+
+    public int getTransferMinutes(int station) {
+        return transferMinutes[station];
+    }
+}
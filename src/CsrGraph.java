@@ -0,0 +1,68 @@
+import java.util.Arrays;
+
+public class CsrGraph {
+
+    private final int[] offsets;
+    private final int[] neighbors;
+
+    private CsrGraph(int[] offsets, int[] neighbors) {
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+    }
+
+    public static CsrGraph build(CustomGraph<String> graph, StationInterner interner) {
+        int nodeCount = interner.size();
+        int[] offsets = new int[nodeCount + 1];
+        for (String node : graph.getNodes()) {
+            offsets[interner.find(node) + 1] = graph.getNeighbors(node).size();
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] neighbors = new int[offsets[nodeCount]];
+        for (String node : graph.getNodes()) {
+            int id = interner.find(node);
+            int next = offsets[id];
+            for (String neighbor : graph.getNeighbors(node)) {
+                neighbors[next++] = interner.find(neighbor);
+            }
+            Arrays.sort(neighbors, offsets[id], next);
+        }
+        return new CsrGraph(offsets, neighbors);
+    }
+
+    public int getNodeCount() {
+        return offsets.length - 1;
+    }
+
+    public int getEdgeCount() {
+        int selfLoops = 0;
+        for (int node = 0; node < getNodeCount(); node++) {
+            if (hasEdge(node, node)) {
+                selfLoops++;
+            }
+        }
+        return (neighbors.length + selfLoops) / 2;
+    }
+
+    public int getDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int getNeighborStart(int node) {
+        return offsets[node];
+    }
+
+    public int getNeighborEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    public int getNeighborAt(int index) {
+        return neighbors[index];
+    }
+
+    public boolean hasEdge(int source, int destination) {
+        return Arrays.binarySearch(neighbors, offsets[source], offsets[source + 1], destination) >= 0;
+    }
+}
\ No newline at end of file
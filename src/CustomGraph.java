@@ -1,41 +1,109 @@
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class CustomGraph<T> {
 
-    private final Map<T, List<T>> adjacencyList;
+    private final Map<T, Map<T, Integer>> adjacencyList;
+    private int edgeCount;
 
     public CustomGraph() {
         this.adjacencyList = new HashMap<>();
     }
 
     public void addNode(T node) {
-        adjacencyList.putIfAbsent(node, new ArrayList<>());
+        adjacencyList.putIfAbsent(node, new LinkedHashMap<>());
     }
 
     public void addEdge(T source, T destination) {
         addNode(source);
         addNode(destination);
 
-        if (!adjacencyList.get(source).contains(destination)) {
-            adjacencyList.get(source).add(destination);
+        if (adjacencyList.get(source).merge(destination, 1, Integer::sum) == 1) {
+            edgeCount++;
         }
-        if (!adjacencyList.get(destination).contains(source)) {
-            adjacencyList.get(destination).add(source);
+        if (!source.equals(destination)) {
+            adjacencyList.get(destination).merge(source, 1, Integer::sum);
         }
     }
 
-    public List<T> getNeighbors(T node) {
-        return adjacencyList.getOrDefault(node, new ArrayList<>());
+    public void removeEdge(T source, T destination) {
+        Map<T, Integer> sourceNeighbors = adjacencyList.get(source);
+        if (sourceNeighbors == null || !sourceNeighbors.containsKey(destination)) {
+            return;
+        }
+
+        if (decrement(sourceNeighbors, destination)) {
+            edgeCount--;
+        }
+        if (!source.equals(destination)) {
+            decrement(adjacencyList.get(destination), source);
+        }
+        removeIfIsolated(source);
+        removeIfIsolated(destination);
+    }
+
+    private boolean decrement(Map<T, Integer> neighbors, T node) {
+        int count = neighbors.get(node);
+        if (count == 1) {
+            neighbors.remove(node);
+            return true;
+        }
+        neighbors.put(node, count - 1);
+        return false;
+    }
+
+    private void removeIfIsolated(T node) {
+        Map<T, Integer> neighbors = adjacencyList.get(node);
+        if (neighbors != null && neighbors.isEmpty()) {
+            adjacencyList.remove(node);
+        }
+    }
+
+    public boolean hasEdge(T source, T destination) {
+        return getEdgeMultiplicity(source, destination) > 0;
+    }
+
+    public int getEdgeMultiplicity(T source, T destination) {
+        Map<T, Integer> neighbors = adjacencyList.get(source);
+        if (neighbors == null) {
+            return 0;
+        }
+        return neighbors.getOrDefault(destination, 0);
+    }
+
+    public Set<T> getNeighbors(T node) {
+        Map<T, Integer> neighbors = adjacencyList.get(node);
+        if (neighbors == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(neighbors.keySet());
+    }
+
+    public Map<T, Set<T>> getAdjacencyList() {
+        Map<T, Set<T>> view = new HashMap<>();
+        for (T node : adjacencyList.keySet()) {
+            view.put(node, getNeighbors(node));
+        }
+        return view;
+    }
+
+    public Set<T> getNodes() {
+        return Collections.unmodifiableSet(adjacencyList.keySet());
+    }
+
+    public int getNodeCount() {
+        return adjacencyList.size();
     }
 
-    public Map<T, List<T>> getAdjacencyList() {
-        return adjacencyList;
+    public int getEdgeCount() {
+        return edgeCount;
     }
 
     public void clear() {
         adjacencyList.clear();
+        edgeCount = 0;
     }
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+public class Journey {
+
+    public static final class Leg {
+        private final Train train;
+        private final int fromIndex;
+        private final int toIndex;
+
+        public Leg(Train train, int fromIndex, int toIndex) {
+            this.train = train;
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+        }
+
+        public Train getTrain() {
+            return train;
+        }
+
+        public int getFromIndex() {
+            return fromIndex;
+        }
+
+        public int getToIndex() {
+            return toIndex;
+        }
+
+        public String getFromStation() {
+            return train.getStations().get(fromIndex);
+        }
+
+        public String getToStation() {
+            return train.getStations().get(toIndex);
+        }
+
+        public int getNumberOfStops() {
+            return toIndex - fromIndex;
+        }
+
+        public int getDepartureTime() {
+            return train.isTimetabled() ? train.getTimetable().getDeparture(fromIndex) : -1;
+        }
+
+        public int getArrivalTime() {
+            return train.isTimetabled() ? train.getTimetable().getArrival(toIndex) : -1;
+        }
+
+        @Override
+        public String toString() {
+            if (train.isTimetabled()) {
+                return String.format("%s: %s %s -> %s %s", train.getName(),
+                        getFromStation(), Timetable.formatTime(getDepartureTime()),
+                        getToStation(), Timetable.formatTime(getArrivalTime()));
+            }
+            return String.format("%s: %s -> %s", train.getName(), getFromStation(), getToStation());
+        }
+    }
+
+    private final List<Leg> legs;
+
+    public Journey(List<Leg> legs) {
+        this.legs = Collections.unmodifiableList(new ArrayList<>(legs));
+    }
+
+    public List<Leg> getLegs() {
+        return legs;
+    }
+
+    public List<Train> getTrains() {
+        List<Train> result = new ArrayList<>(legs.size());
+        for (Leg leg : legs) {
+            result.add(leg.getTrain());
+        }
+        return result;
+    }
+
+    public int getTransfers() {
+        return legs.size() - 1;
+    }
+
+    public int getDepartureTime() {
+        return legs.isEmpty() ? -1 : legs.get(0).getDepartureTime();
+    }
+
+    public int getArrivalTime() {
+        return legs.isEmpty() ? -1 : legs.get(legs.size() - 1).getArrivalTime();
+    }
+
+    public int getNumberOfStops() {
+        int stops = 0;
+        for (Leg leg : legs) {
+            stops += leg.getNumberOfStops();
+        }
+        return stops;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner sj = new StringJoiner(", then ");
+        for (Leg leg : legs) {
+            sj.add(leg.toString());
+        }
+        return String.format("%d transfer(s), %d stops: %s", getTransfers(), getNumberOfStops(), sj);
+    }
+}
\ No newline at end of file
@@ -1,7 +1,114 @@
 import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class Main {
-    public static void main(String[] args) {
+    private static final int DEFAULT_PORT = 8080;
+    private static final long DEFAULT_METRICS_INTERVAL_SECONDS = 60;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            startServer(args.length > 1 ? parsePort(args[1]) : DEFAULT_PORT);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--import")) {
+            importCsv(requirePath(args));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--import-text")) {
+            importText(requirePath(args));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--export-text")) {
+            exportText(requirePath(args));
+            return;
+        }
+        if (args.length > 0) {
+            System.err.println("Unknown option '" + args[0] + "'");
+            usage();
+        }
         SwingUtilities.invokeLater(() -> new MainFrame());
     }
+
+    private static int parsePort(String text) {
+        int port;
+        try {
+            port = Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            port = -1;
+        }
+        if (port < 0 || port > 65535) {
+            System.err.println("Invalid port '" + text + "', expected a number between 0 and 65535");
+            usage();
+        }
+        return port;
+    }
+
+    private static Path requirePath(String[] args) {
+        if (args.length < 2 || args[1].trim().isEmpty()) {
+            System.err.println(args[0] + " needs a file");
+            usage();
+        }
+        return Paths.get(args[1]);
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java -jar train-manager.jar [--server [port] | --import file.csv"
+                + " | --import-text file | --export-text file]");
+        System.exit(2);
+    }
+
+    private static void importCsv(Path path) throws IOException {
+        TrainManager trainManager = new TrainManager();
+        try {
+            TrainCsvImporter.Report report = trainManager.importFromCsv(path);
+            System.out.println(report);
+            for (String problem : report.getProblems()) {
+                System.err.println("Rejected in " + path + ", " + problem);
+            }
+        } finally {
+            trainManager.close();
+        }
+    }
+
+    private static void importText(Path path) throws IOException {
+        TrainManager trainManager = new TrainManager();
+        try {
+            System.out.println(trainManager.importFromText(path));
+        } finally {
+            trainManager.close();
+        }
+    }
+
+    private static void exportText(Path path) throws IOException {
+        TrainManager trainManager = new TrainManager();
+        try {
+            trainManager.exportToText(path);
+            System.out.println("Exported " + trainManager.getTrains().size() + " trains to " + path);
+        } finally {
+            trainManager.close();
+        }
+    }
+
+    private static void startServer(int port) throws IOException {
+        TrainManager trainManager = new TrainManager();
+        ConcurrentTrainManager concurrentManager = new ConcurrentTrainManager(trainManager);
+        QueryServer server = new QueryServer(concurrentManager, port);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            concurrentManager.submit(m -> {
+                m.saveToFile();
+                m.close();
+                return null;
+            }).join();
+        }));
+
+        server.start();
+        trainManager.getMetrics().startPeriodicDump(
+                Long.getLong("trains.metrics.interval", DEFAULT_METRICS_INTERVAL_SECONDS),
+                dump -> System.out.print("-- train manager metrics --\n" + dump));
+        System.out.println("Train query server listening on http://localhost:" + server.getPort());
+    }
 }
\ No newline at end of file
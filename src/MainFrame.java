@@ -1,16 +1,25 @@
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
-public class MainFrame extends JFrame {
+public final class MainFrame extends JFrame {
 
-    private final TrainManager trainManager;
-    private final DefaultListModel<Train> trainListModel;
+    private static final long serialVersionUID = 1L;
+
+    private final transient TrainManager trainManager;
+    private final TrainListModel trainListModel;
     private JList<Train> trainList;
 
     private final JTextField nameField = new JTextField(20);
@@ -18,12 +27,20 @@ public class MainFrame extends JFrame {
 
     private final JTextField fromField = new JTextField(15);
     private final JTextField toField = new JTextField(15);
+    private final JTextField departField = new JTextField(5);
     private final JTextArea resultArea = new JTextArea(5, 50);
+    private transient RouteSearch routeSearch;
+
+    private static final int MAX_SEARCH_TRANSFERS = 3;
+    private static final int MAX_REPORTED_IMPORT_PROBLEMS = 10;
+    private static final int IMPORT_STEP = 10_000;
+    private static final int INTERCHANGE_COUNT = 10;
+    private static final int DISCONNECTED = -1;
 
     public MainFrame() {
         this.trainList = trainList;
         this.trainManager = new TrainManager();
-        this.trainListModel = new DefaultListModel<>();
+        this.trainListModel = new TrainListModel(trainManager);
 
         setTitle("Train Route Management System");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -42,14 +59,30 @@ public class MainFrame extends JFrame {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                trainManager.saveToFile();
+                synchronized (trainManager) {
+                    trainManager.saveToFile();
+                    trainManager.close();
+                }
             }
         });
 
-        updateTrainList();
         pack();
         setLocationRelativeTo(null);
         setVisible(true);
+        showLoadProblems();
+    }
+
+    private void showLoadProblems() {
+        TrainFileLoader.Report report = trainManager.getLastLoadReport();
+        if (report == null || report.getMalformedLines() == 0) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("Some saved trains could not be loaded.\n").append(report);
+        List<String> problems = report.getProblems();
+        for (int i = 0; i < Math.min(problems.size(), MAX_REPORTED_IMPORT_PROBLEMS); i++) {
+            message.append('\n').append(problems.get(i));
+        }
+        JOptionPane.showMessageDialog(this, message.toString(), "Load Problems", JOptionPane.WARNING_MESSAGE);
     }
 
     private JPanel createListPanel() {
@@ -58,12 +91,22 @@ public class MainFrame extends JFrame {
 
         trainList = new JList<>(trainListModel);
         trainList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        trainList.setPrototypeCellValue(new Train("Prototype Express",
+                Arrays.asList("Philadelphia", "Baltimore", "Washington D.C.", "Richmond", "Charlotte")));
+        trainList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                Object text = value instanceof Train ? trainListModel.getText((Train) value) : value;
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
         trainList.addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
                 Train selected = trainList.getSelectedValue();
                 if (selected != null) {
-                    nameField.setText(selected.getName());
-                    stationsField.setText(String.join(", ", selected.getStations()));
+                    nameField.setText(selected.formatName());
+                    stationsField.setText(String.join(", ", selected.formatStops()));
                 }
             }
         });
@@ -74,14 +117,14 @@ public class MainFrame extends JFrame {
         JPanel sortButtonPanel = new JPanel(new FlowLayout());
         JButton sortByNameButton = new JButton("Sort by Start Station");
         sortByNameButton.addActionListener(e -> {
-            trainManager.sortTrainsByName();
-            updateTrainList();
+            trainList.clearSelection();
+            trainListModel.setOrder(TrainOrder.START_STATION);
         });
 
         JButton sortByStopsButton = new JButton("Sort by Stops");
         sortByStopsButton.addActionListener(e -> {
-            trainManager.sortByNumberOfStops();
-            updateTrainList();
+            trainList.clearSelection();
+            trainListModel.setOrder(TrainOrder.NUMBER_OF_STOPS);
         });
 
         sortButtonPanel.add(sortByNameButton);
@@ -115,11 +158,13 @@ public class MainFrame extends JFrame {
         JButton updateButton = new JButton("Update Selected");
         JButton deleteButton = new JButton("Delete Selected");
         JButton clearButton = new JButton("Clear Fields");
+        JButton importButton = new JButton("Import CSV...");
 
         buttonPanel.add(addButton);
         buttonPanel.add(updateButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(clearButton);
+        buttonPanel.add(importButton);
 
         gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 3;
         panel.add(buttonPanel, gbc);
@@ -128,6 +173,7 @@ public class MainFrame extends JFrame {
         updateButton.addActionListener(e -> handleUpdateTrain());
         deleteButton.addActionListener(e -> handleDeleteTrain());
         clearButton.addActionListener(e -> clearInputFields());
+        importButton.addActionListener(e -> handleImportCsv(importButton));
 
         return panel;
     }
@@ -141,8 +187,12 @@ public class MainFrame extends JFrame {
         inputPanel.add(fromField);
         inputPanel.add(new JLabel("To:"));
         inputPanel.add(toField);
+        inputPanel.add(new JLabel("Depart after:"));
+        inputPanel.add(departField);
         JButton findButton = new JButton("Find Route");
         inputPanel.add(findButton);
+        JButton interchangesButton = new JButton("Key Interchanges");
+        inputPanel.add(interchangesButton);
 
         resultArea.setEditable(false);
         JScrollPane resultScrollPane = new JScrollPane(resultArea);
@@ -151,15 +201,31 @@ public class MainFrame extends JFrame {
         panel.add(resultScrollPane, BorderLayout.CENTER);
 
         findButton.addActionListener(e -> handleFindRoute());
+        interchangesButton.addActionListener(e -> handleShowInterchanges());
+        StationAutocomplete.install(fromField, trainManager::getStationTrie);
+        StationAutocomplete.install(toField, trainManager::getStationTrie);
 
-        return panel;
-    }
+        DocumentListener cancelOnEdit = new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                cancelSearch();
+            }
 
-    private void updateTrainList() {
-        trainListModel.clear();
-        for (Train train : trainManager.getTrains()) {
-            trainListModel.addElement(train);
-        }
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                cancelSearch();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                cancelSearch();
+            }
+        };
+        fromField.getDocument().addDocumentListener(cancelOnEdit);
+        toField.getDocument().addDocumentListener(cancelOnEdit);
+        departField.getDocument().addDocumentListener(cancelOnEdit);
+
+        return panel;
     }
 
     private void clearInputFields() {
@@ -177,10 +243,15 @@ public class MainFrame extends JFrame {
             return;
         }
 
-        List<String> stations = Arrays.stream(stationsStr.split(","))
+        List<String> stops = Arrays.stream(stationsStr.split(","))
                 .map(String::trim)
                 .filter(s -> !s.isEmpty())
                 .collect(Collectors.toList());
+        Train newTrain = parseTrain(name, stops);
+        if (newTrain == null) {
+            return;
+        }
+        List<String> stations = newTrain.getStations();
 
         if (stations.size() < 2) {
             JOptionPane.showMessageDialog(this, "A train must have at least two stations.", "Input Error", JOptionPane.ERROR_MESSAGE);
@@ -192,9 +263,11 @@ public class MainFrame extends JFrame {
             return;
         }
 
-        Train newTrain = new Train(name, stations);
-        if (trainManager.addTrain(newTrain)) {
-            updateTrainList();
+        boolean added;
+        synchronized (trainManager) {
+            added = trainManager.addTrain(newTrain);
+        }
+        if (added) {
             clearInputFields();
         } else {
             JOptionPane.showMessageDialog(this, "A train with this name already exists.", "Duplicate Error", JOptionPane.ERROR_MESSAGE);
@@ -216,24 +289,36 @@ public class MainFrame extends JFrame {
             JOptionPane.showMessageDialog(this, "Train name and stations cannot be empty.", "Input Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
-        List<String> stations = Arrays.stream(stationsStr.split(",")).map(String::trim).collect(Collectors.toList());
-        if (stations.size() < 2) {
+        List<String> stops = Arrays.stream(stationsStr.split(",")).map(String::trim).collect(Collectors.toList());
+        Train updatedTrain = parseTrain(newName, stops);
+        if (updatedTrain == null) {
+            return;
+        }
+        if (updatedTrain.getStations().size() < 2) {
             JOptionPane.showMessageDialog(this, "A train must have at least two stations.", "Input Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        Train updatedTrain = new Train(newName, stations);
-
-        if(!oldName.equalsIgnoreCase(newName) && trainManager.getTrains().contains(updatedTrain)) {
+        boolean updated;
+        synchronized (trainManager) {
+            updated = trainManager.updateTrain(oldName, updatedTrain);
+        }
+        if (!updated) {
             JOptionPane.showMessageDialog(this, "Another train with the new name already exists.", "Duplicate Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
-
-        trainManager.updateTrain(oldName, updatedTrain);
-        updateTrainList();
         clearInputFields();
     }
 
+    private Train parseTrain(String name, List<String> stops) {
+        try {
+            return Train.parse(name, stops);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Invalid timetable: " + e.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+    }
+
     private void handleDeleteTrain() {
         Train selectedTrain = trainList.getSelectedValue();
         if (selectedTrain == null) {
@@ -247,12 +332,115 @@ public class MainFrame extends JFrame {
                 JOptionPane.YES_NO_OPTION);
 
         if (choice == JOptionPane.YES_OPTION) {
-            trainManager.removeTrain(selectedTrain.getName());
-            updateTrainList();
+            synchronized (trainManager) {
+                trainManager.removeTrain(selectedTrain.getName());
+            }
             clearInputFields();
         }
     }
 
+    private void handleImportCsv(JButton importButton) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV timetables", "csv", "txt"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path path = chooser.getSelectedFile().toPath();
+        importButton.setEnabled(false);
+        ProgressMonitor progress = new ProgressMonitor(this, "Importing " + path.getFileName(), "Reading file...", 0, 1);
+        progress.setMillisToDecideToPopup(0);
+        progress.setMillisToPopup(0);
+        new SwingWorker<TrainCsvImporter.Batch, Void>() {
+            @Override
+            protected TrainCsvImporter.Batch doInBackground() throws IOException {
+                return TrainCsvImporter.read(path);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    new CsvImport(get(), progress, importButton).start();
+                } catch (InterruptedException | ExecutionException e) {
+                    progress.close();
+                    importButton.setEnabled(true);
+                    Throwable cause = e.getCause() == null ? e : e.getCause();
+                    JOptionPane.showMessageDialog(MainFrame.this, "Could not import " + path + ": " + cause.getMessage(),
+                            "Import Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private final class CsvImport implements Runnable {
+        private final List<Train> trains;
+        private final TrainCsvImporter.Report report;
+        private final ProgressMonitor progress;
+        private final JButton importButton;
+        private final long started;
+        private int next;
+
+        CsvImport(TrainCsvImporter.Batch batch, ProgressMonitor progress, JButton importButton) {
+            this.trains = batch.getTrains();
+            this.report = batch.getReport();
+            this.progress = progress;
+            this.importButton = importButton;
+            this.started = System.nanoTime();
+        }
+
+        void start() {
+            progress.setMaximum(Math.max(trains.size(), 1));
+            SwingUtilities.invokeLater(this);
+        }
+
+        @Override
+        public void run() {
+            int end = progress.isCanceled() ? next : Math.min(trains.size(), next + IMPORT_STEP);
+            synchronized (trainManager) {
+                for (Train duplicate : trainManager.addTrains(trains.subList(next, end), false)) {
+                    report.duplicate(duplicate);
+                }
+            }
+            next = end;
+            progress.setProgress(next);
+            progress.setNote(String.format("Added %,d of %,d trains", next, trains.size()));
+            if (next < trains.size() && !progress.isCanceled()) {
+                SwingUtilities.invokeLater(this);
+                return;
+            }
+            progress.setNote("Saving...");
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() {
+                    synchronized (trainManager) {
+                        trainManager.saveToFile();
+                        trainManager.completeImport(report, started);
+                    }
+                    return null;
+                }
+
+                @Override
+                protected void done() {
+                    progress.close();
+                    importButton.setEnabled(true);
+                    showReport();
+                }
+            }.execute();
+        }
+
+        private void showReport() {
+            StringBuilder message = new StringBuilder(report.toString());
+            if (next < trains.size()) {
+                message.append(String.format("%nCancelled: %,d trains were not added.", trains.size() - next));
+            }
+            List<String> problems = report.getProblems();
+            for (int i = 0; i < Math.min(problems.size(), MAX_REPORTED_IMPORT_PROBLEMS); i++) {
+                message.append('\n').append(problems.get(i));
+            }
+            JOptionPane.showMessageDialog(MainFrame.this, message.toString(), "Import Finished",
+                    problems.isEmpty() ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
     private void handleFindRoute() {
         String from = fromField.getText().trim();
         String to = toField.getText().trim();
@@ -262,42 +450,192 @@ public class MainFrame extends JFrame {
             return;
         }
 
-        if (from.equalsIgnoreCase(to)) {
+        int departAfter = -1;
+        if (!departField.getText().trim().isEmpty()) {
+            try {
+                departAfter = Timetable.parseTime(departField.getText());
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(this, "Departure time must look like 08:00.", "Input Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+
+        StationTrie stations = trainManager.getStationTrie();
+        String fromStation = canonicalStation(stations, from);
+        String toStation = canonicalStation(stations, to);
+        if (fromStation == null || toStation == null) {
+            return;
+        }
+
+        if (fromStation.equalsIgnoreCase(toStation)) {
             JOptionPane.showMessageDialog(this, "'From' and 'To' stations cannot be the same.", "Input Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        StringBuilder result = new StringBuilder();
+        cancelSearch();
+        resultArea.setText("Searching...\n");
+        routeSearch = new RouteSearch(fromStation, toStation, departAfter);
+        routeSearch.execute();
+    }
 
-        Train directRoute = trainManager.findDirectRoute(from, to);
-        if (directRoute != null) {
-            result.append("--- Direct Route Found ---\n");
-            result.append("Take train '").append(directRoute.getName()).append("'\n");
-            result.append("Route: ").append(String.join(" -> ", directRoute.getStations()));
-        } else {
-            List<Train> transferRoute = trainManager.findRouteWithOneTransfer(from, to);
-            if (!transferRoute.isEmpty()) {
-                Train train1 = transferRoute.get(0);
-                Train train2 = transferRoute.get(1);
-
-                String transferStation = "";
-                for(String station : train1.getStations()){
-                    if(train2.getStations().contains(station)){
-                        transferStation = station;
-                        break;
+    private void handleShowInterchanges() {
+        cancelSearch();
+        resultArea.setText("Ranking interchanges...\n");
+        new SwingWorker<List<StationHubs.Hub>, Void>() {
+            @Override
+            protected List<StationHubs.Hub> doInBackground() {
+                return snapshot().findHubs(INTERCHANGE_COUNT);
+            }
+
+            @Override
+            protected void done() {
+                if (routeSearch != null) {
+                    return;
+                }
+                try {
+                    StringBuilder text = new StringBuilder("--- Key Interchanges ---\n");
+                    List<StationHubs.Hub> hubs = get();
+                    for (int i = 0; i < hubs.size(); i++) {
+                        text.append(i + 1).append(". ").append(hubs.get(i)).append('\n');
                     }
+                    resultArea.setText(text.toString());
+                } catch (InterruptedException | ExecutionException e) {
+                    resultArea.setText("Ranking failed: " + e.getMessage() + "\n");
                 }
+            }
+        }.execute();
+    }
 
-                result.append("--- Route with 1 Transfer Found ---\n");
-                result.append("1. Take train '").append(train1.getName()).append("' from ").append(from).append(" to ").append(transferStation).append(".\n");
-                result.append("2. Transfer at ").append(transferStation).append(".\n");
-                result.append("3. Take train '").append(train2.getName()).append("' from ").append(transferStation).append(" to ").append(to).append(".");
-            } else {
-                result.append("No direct route or route with one transfer found between '")
-                        .append(from).append("' and '").append(to).append("'.");
+    private NetworkSnapshot snapshot() {
+        synchronized (trainManager) {
+            return trainManager.snapshot();
+        }
+    }
+
+    private String canonicalStation(StationTrie stations, String input) {
+        String station = stations.canonicalize(input);
+        if (station == null) {
+            List<String> suggestions = stations.suggest(input, 5);
+            String message = "Unknown station '" + input + "'."
+                    + (suggestions.isEmpty() ? "" : "\nDid you mean: " + String.join(", ", suggestions) + "?");
+            JOptionPane.showMessageDialog(this, message, "Input Error", JOptionPane.ERROR_MESSAGE);
+        }
+        return station;
+    }
+
+    private void cancelSearch() {
+        if (routeSearch != null && !routeSearch.isDone()) {
+            routeSearch.cancel(true);
+            resultArea.append("Search cancelled.\n");
+        }
+        routeSearch = null;
+    }
+
+    private static final class FoundJourney {
+        private final Journey journey;
+        private final long elapsedNanos;
+
+        FoundJourney(Journey journey, long elapsedNanos) {
+            this.journey = journey;
+            this.elapsedNanos = elapsedNanos;
+        }
+    }
+
+    private final class RouteSearch extends SwingWorker<Integer, FoundJourney> implements RouteEngine.Progress {
+        private final String from;
+        private final String to;
+        private final int departAfter;
+        private final long started;
+
+        RouteSearch(String from, String to, int departAfter) {
+            this.from = from;
+            this.to = to;
+            this.departAfter = departAfter;
+            this.started = System.nanoTime();
+        }
+
+        @Override
+        protected Integer doInBackground() {
+            NetworkSnapshot snapshot = snapshot();
+            if (!snapshot.areConnected(from, to)) {
+                return DISCONNECTED;
+            }
+            if (departAfter >= 0) {
+                int today = LocalDate.now().getDayOfWeek().getValue() - 1;
+                Journey journey = snapshot.findEarliestArrival(from, to, today, departAfter);
+                if (journey == null) {
+                    return 0;
+                }
+                journeyFound(journey);
+                return 1;
             }
+            return snapshot.findJourneys(from, to, MAX_SEARCH_TRANSFERS, this).size();
         }
 
-        resultArea.setText(result.toString());
+        @Override
+        public void journeyFound(Journey journey) {
+            publish(new FoundJourney(journey, System.nanoTime() - started));
+        }
+
+        @Override
+        protected void process(List<FoundJourney> found) {
+            if (routeSearch != this) {
+                return;
+            }
+            for (FoundJourney result : found) {
+                resultArea.append(formatJourney(result.journey, result.elapsedNanos));
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (routeSearch != this || isCancelled()) {
+                return;
+            }
+            try {
+                int count = get();
+                String elapsed = String.format("%.1f ms", (System.nanoTime() - started) / 1e6);
+                if (count == DISCONNECTED) {
+                    resultArea.setText("'" + from + "' and '" + to + "' are in separate parts of the network; no train"
+                            + " connects them.\n");
+                } else if (count == 0 && departAfter >= 0) {
+                    resultArea.append("No timetabled connection from '" + from + "' to '" + to + "' after "
+                            + Timetable.formatTime(departAfter) + " today (" + elapsed + ").\n");
+                } else if (count == 0) {
+                    resultArea.append("No route with up to " + MAX_SEARCH_TRANSFERS + " transfers found between '"
+                            + from + "' and '" + to + "' (" + elapsed + ").\n");
+                } else {
+                    resultArea.append("Search finished in " + elapsed + ".\n");
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                resultArea.append("Search failed: " + e.getMessage() + "\n");
+            }
+        }
+    }
+
+    private static String formatJourney(Journey journey, long elapsedNanos) {
+        StringBuilder result = new StringBuilder();
+        int transfers = journey.getTransfers();
+        if (transfers == 0) {
+            result.append("--- Direct Route Found");
+        } else {
+            result.append("--- Route with ").append(transfers).append(transfers == 1 ? " Transfer" : " Transfers").append(" Found");
+        }
+        result.append(String.format(" (%.1f ms) ---%n", elapsedNanos / 1e6));
+
+        List<Journey.Leg> legs = journey.getLegs();
+        for (int i = 0; i < legs.size(); i++) {
+            Journey.Leg leg = legs.get(i);
+            result.append(i + 1).append(". Take train '").append(leg.getTrain().getName()).append("' from ")
+                    .append(leg.getFromStation());
+            if (leg.getTrain().isTimetabled()) {
+                result.append(" at ").append(Timetable.formatTime(leg.getDepartureTime()))
+                        .append(" to ").append(leg.getToStation())
+                        .append(", arriving ").append(Timetable.formatTime(leg.getArrivalTime())).append(".\n");
+            } else {
+                result.append(" to ").append(leg.getToStation()).append(".\n");
+            }
+        }
+        return result.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,308 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+public class NetworkSnapshot {
+
+    private static final int POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+    private static final EnginePool<RouteEngine> ROUTE_ENGINES = new EnginePool<>(RouteEngine::new);
+    private static final EnginePool<ConnectionScan> CONNECTION_SCANS = new EnginePool<>(ConnectionScan::new);
+    private static final EnginePool<byte[][]> TRANSFER_ROWS = new EnginePool<>(() -> new byte[1][0]);
+
+    public interface TransferRowConsumer {
+        void accept(int origin, byte[] transfers);
+    }
+
+    private static final class EnginePool<T> {
+        private final ArrayBlockingQueue<T> idle = new ArrayBlockingQueue<>(POOL_SIZE);
+        private final Supplier<T> factory;
+
+        EnginePool(Supplier<T> factory) {
+            this.factory = factory;
+        }
+
+        <R> R apply(Function<T, R> operation) {
+            T engine = idle.poll();
+            if (engine == null) {
+                engine = factory.get();
+            }
+            try {
+                return operation.apply(engine);
+            } finally {
+                idle.offer(engine);
+            }
+        }
+    }
+
+    private final List<Train> trains;
+    private final RoutingNetwork network;
+    private final int[] components;
+    private final Map<String, Integer> transferTimes;
+    private final RouteCache routeCache;
+    private final long cacheGeneration;
+    private volatile ConnectionTable connections;
+    private volatile List<StationHubs.Hub> hubs;
+
+    private NetworkSnapshot(List<Train> trains, RoutingNetwork network, int[] components,
+            Map<String, Integer> transferTimes, RouteCache routeCache) {
+        this.trains = trains;
+        this.network = network;
+        this.components = components;
+        this.transferTimes = transferTimes;
+        this.routeCache = routeCache;
+        this.cacheGeneration = routeCache.getGeneration();
+    }
+
+    public static NetworkSnapshot of(TrainManager manager) {
+        return manager.snapshot();
+    }
+
+    static NetworkSnapshot build(TrainManager manager, NetworkSnapshot previous) {
+        List<Train> trains = Collections.unmodifiableList(new ArrayList<>(manager.getTrains()));
+        NetworkSnapshot snapshot = new NetworkSnapshot(trains, manager.getRoutingNetwork(),
+                manager.getStationComponents().labels(), Map.copyOf(manager.getMinimumTransferTimes()),
+                manager.getRouteCache());
+        if (previous != null && previous.network == snapshot.network) {
+            snapshot.hubs = previous.hubs;
+        }
+        return snapshot;
+    }
+
+    public List<Train> getTrains() {
+        return trains;
+    }
+
+    public RoutingNetwork getNetwork() {
+        return network;
+    }
+
+    public Map<String, Integer> getMinimumTransferTimes() {
+        return transferTimes;
+    }
+
+    public List<Train> findTrainsByStation(String stationName) {
+        int station = network.findStation(stationName);
+        if (station == -1) {
+            return Collections.emptyList();
+        }
+
+        List<Train> result = new ArrayList<>();
+        int last = -1;
+        for (int stop = network.getStopStart(station); stop < network.getStopEnd(station); stop++) {
+            int train = network.getStopTrain(stop);
+            if (train != last) {
+                result.add(network.getTrain(train));
+                last = train;
+            }
+        }
+        return result;
+    }
+
+    public Train findDirectRoute(String start, String end) {
+        int from = network.findStation(start);
+        int to = network.findStation(end);
+        if (from == -1 || to == -1) {
+            return null;
+        }
+
+        int a = network.getStopStart(from);
+        int aEnd = network.getStopEnd(from);
+        int b = network.getStopStart(to);
+        int bEnd = network.getStopEnd(to);
+        while (a < aEnd && b < bEnd) {
+            int trainA = network.getStopTrain(a);
+            int trainB = network.getStopTrain(b);
+            if (trainA < trainB) {
+                a++;
+            } else if (trainB < trainA) {
+                b++;
+            } else {
+                int firstStart = network.getStopPosition(a);
+                while (b + 1 < bEnd && network.getStopTrain(b + 1) == trainB) {
+                    b++;
+                }
+                if (firstStart < network.getStopPosition(b)) {
+                    return network.getTrain(trainA);
+                }
+                while (a < aEnd && network.getStopTrain(a) == trainA) {
+                    a++;
+                }
+                b++;
+            }
+        }
+        return null;
+    }
+
+    public boolean areConnected(String start, String end) {
+        int from = network.findStation(start);
+        int to = network.findStation(end);
+        return from != -1 && to != -1 && components[from] == components[to];
+    }
+
+    public List<Journey> findJourneys(String start, String end, int maxTransfers) {
+        return findJourneys(start, end, maxTransfers, null);
+    }
+
+    public List<Journey> findJourneys(String start, String end, int maxTransfers, RouteEngine.Progress progress) {
+        if (!areConnected(start, end)) {
+            return Collections.emptyList();
+        }
+        List<Journey> journeys = routeCache.get(start, end, maxTransfers, cacheGeneration);
+        if (journeys != null) {
+            if (progress != null) {
+                journeys.forEach(progress::journeyFound);
+            }
+            return journeys;
+        }
+        BitSet reachedStations = new BitSet();
+        journeys = ROUTE_ENGINES.apply(engine -> engine.search(network, start, end, maxTransfers, reachedStations,
+                progress));
+        if (progress == null || !progress.isCancelled()) {
+            routeCache.put(start, end, maxTransfers, journeys, reachedStations, cacheGeneration);
+        }
+        return journeys;
+    }
+
+    public List<StationHubs.Hub> findHubs(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        List<StationHubs.Hub> ranking = hubs;
+        if (ranking == null) {
+            synchronized (this) {
+                ranking = hubs;
+                if (ranking == null) {
+                    ranking = Collections.unmodifiableList(StationHubs.byBetweenness(network, Integer.MAX_VALUE,
+                            StationHubs.DEFAULT_MAX_SOURCES));
+                    hubs = ranking;
+                }
+            }
+        }
+        return ranking.subList(0, Math.min(limit, ranking.size()));
+    }
+
+    public RouteMatrix findTransfersFrom(String origin, int maxTransfers) {
+        byte[] transfers = new byte[network.getStationCount()];
+        transfersFrom(network.findStation(origin), maxTransfers, transfers);
+        List<String> stations = new ArrayList<>(network.getStationCount());
+        for (int s = 0; s < network.getStationCount(); s++) {
+            stations.add(network.getStationName(s));
+        }
+        return new RouteMatrix(List.of(origin), stations, transfers);
+    }
+
+    public RouteMatrix findTransferMatrix(List<String> origins, List<String> destinations, int maxTransfers) {
+        int columns = destinations.size();
+        int[] destinationIds = new int[columns];
+        for (int c = 0; c < columns; c++) {
+            destinationIds[c] = network.findStation(destinations.get(c));
+        }
+
+        byte[] transfers = new byte[Math.multiplyExact(origins.size(), columns)];
+        IntStream.range(0, origins.size()).parallel().forEach(r -> withTransferRow(row -> {
+            transfersFrom(network.findStation(origins.get(r)), maxTransfers, row);
+            int offset = r * columns;
+            for (int c = 0; c < columns; c++) {
+                transfers[offset + c] = destinationIds[c] == -1 ? RouteMatrix.NO_ROUTE : row[destinationIds[c]];
+            }
+        }));
+        return new RouteMatrix(new ArrayList<>(origins), new ArrayList<>(destinations), transfers);
+    }
+
+    public byte[] findTransfers(List<String> from, List<String> to, int maxTransfers) {
+        int count = from.size();
+        if (to.size() != count) {
+            throw new IllegalArgumentException("from and to must have the same length");
+        }
+        long[] byOrigin = new long[count];
+        int[] destinationIds = new int[count];
+        for (int i = 0; i < count; i++) {
+            byOrigin[i] = ((long) network.findStation(from.get(i)) << 32) | i;
+            destinationIds[i] = network.findStation(to.get(i));
+        }
+        Arrays.sort(byOrigin);
+
+        int groupCount = 0;
+        int[] groupStarts = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || (byOrigin[i] >> 32) != (byOrigin[i - 1] >> 32)) {
+                groupStarts[groupCount++] = i;
+            }
+        }
+        groupStarts[groupCount] = count;
+
+        byte[] transfers = new byte[count];
+        IntStream.range(0, groupCount).parallel().forEach(g -> withTransferRow(row -> {
+            int start = groupStarts[g];
+            int end = groupStarts[g + 1];
+            transfersFrom((int) (byOrigin[start] >> 32), maxTransfers, row);
+            for (int i = start; i < end; i++) {
+                int pair = (int) byOrigin[i];
+                transfers[pair] = destinationIds[pair] == -1 ? RouteMatrix.NO_ROUTE : row[destinationIds[pair]];
+            }
+        }));
+        return transfers;
+    }
+
+    public void forEachTransferRow(int[] origins, int maxTransfers, TransferRowConsumer consumer) {
+        IntStream.of(origins).parallel().forEach(origin -> withTransferRow(row -> {
+            transfersFrom(origin, maxTransfers, row);
+            consumer.accept(origin, row);
+        }));
+    }
+
+    private void transfersFrom(int origin, int maxTransfers, byte[] transfers) {
+        ROUTE_ENGINES.apply(engine -> {
+            engine.transfersFrom(network, origin, maxTransfers, transfers);
+            return null;
+        });
+    }
+
+    private void withTransferRow(Consumer<byte[]> operation) {
+        TRANSFER_ROWS.apply(holder -> {
+            if (holder[0].length < network.getStationCount()) {
+                holder[0] = new byte[network.getStationCount()];
+            }
+            operation.accept(holder[0]);
+            return null;
+        });
+    }
+
+    public ConnectionTable getConnections() {
+        ConnectionTable table = connections;
+        if (table == null) {
+            table = ConnectionTable.build(network, transferTimes);
+            connections = table;
+        }
+        return table;
+    }
+
+    public Journey findEarliestArrival(String start, String end, int day, int departAfter) {
+        if (!areConnected(start, end)) {
+            return null;
+        }
+        ConnectionTable table = getConnections();
+        return CONNECTION_SCANS.apply(scan -> scan.earliestArrival(table, start, end, day, departAfter));
+    }
+
+    public List<Train> findRouteWithOneTransfer(String start, String end) {
+        for (Journey journey : findJourneys(start, end, 1)) {
+            if (journey.getTransfers() == 1) {
+                List<Train> trains = journey.getTrains();
+                if (!trains.get(0).equals(trains.get(1))) {
+                    return trains;
+                }
+                return RouteEngine.findOneTransfer(start, end, this::findTrainsByStation);
+            }
+        }
+        return new ArrayList<>();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,307 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+public class QueryServer {
+
+    private static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    private static final int DEFAULT_MAX_TRANSFERS = 2;
+    private static final int MAX_TRANSFERS = 8;
+    private static final int DEFAULT_HUB_LIMIT = 10;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+
+    private interface Handler {
+        String handle(HttpExchange exchange, Map<String, String> params) throws IOException;
+    }
+
+    private static final class HttpError extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final ConcurrentTrainManager trainManager;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final Map<String, LatencyHistogram> latencies;
+
+    public QueryServer(ConcurrentTrainManager trainManager, int port, int maxInFlight) throws IOException {
+        this.trainManager = trainManager;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.latencies = new LinkedHashMap<>();
+
+        register("/trains", this::handleTrains);
+        register("/direct", this::handleDirect);
+        register("/journeys", this::handleJourneys);
+        register("/earliest", this::handleEarliest);
+        register("/hubs", this::handleHubs);
+        register("/transfers", this::handleTransfers);
+        register("/metrics", (exchange, params) -> metrics());
+        server.setExecutor(executor);
+    }
+
+    public QueryServer(ConcurrentTrainManager trainManager, int port) throws IOException {
+        this(trainManager, port, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void register(String path, Handler handler) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        latencies.put(path, histogram);
+        server.createContext(path, exchange -> {
+            if (!inFlight.tryAcquire()) {
+                respond(exchange, 503, "Server busy, retry later\n");
+                return;
+            }
+            long started = System.nanoTime();
+            try {
+                respond(exchange, 200, handler.handle(exchange, parseQuery(exchange)));
+            } catch (HttpError e) {
+                respond(exchange, e.status, e.getMessage() + "\n");
+            } catch (RuntimeException e) {
+                respond(exchange, 500, "Internal error: " + e.getMessage() + "\n");
+            } finally {
+                histogram.record(System.nanoTime() - started);
+                inFlight.release();
+            }
+        });
+    }
+
+    private String handleTrains(HttpExchange exchange, Map<String, String> params) throws IOException {
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                String station = params.get("station");
+                return formatTrains(station == null ? trainManager.getTrains() : trainManager.findTrainsByStation(station));
+            case "POST":
+                Train train = parseTrain(readBody(exchange));
+                if (!trainManager.addTrain(train)) {
+                    throw new HttpError(409, "A train with this name already exists.");
+                }
+                return "OK\n";
+            case "PUT":
+                String oldName = require(params, "name");
+                Train updated = parseTrain(readBody(exchange));
+                if (!trainManager.updateTrain(oldName, updated)) {
+                    throw new HttpError(409, "Another train with the new name already exists.");
+                }
+                return "OK\n";
+            case "DELETE":
+                trainManager.removeTrain(require(params, "name"));
+                return "OK\n";
+            default:
+                throw new HttpError(405, "Method not allowed");
+        }
+    }
+
+    private String handleDirect(HttpExchange exchange, Map<String, String> params) throws IOException {
+        Train train = trainManager.findDirectRoute(require(params, "from"), require(params, "to"));
+        return train == null ? "" : formatTrains(List.of(train));
+    }
+
+    private String handleJourneys(HttpExchange exchange, Map<String, String> params) throws IOException {
+        int maxTransfers = DEFAULT_MAX_TRANSFERS;
+        if (params.containsKey("maxTransfers")) {
+            try {
+                maxTransfers = Integer.parseInt(params.get("maxTransfers"));
+            } catch (NumberFormatException e) {
+                throw new HttpError(400, "maxTransfers must be a number");
+            }
+            if (maxTransfers < 0 || maxTransfers > MAX_TRANSFERS) {
+                throw new HttpError(400, "maxTransfers must be between 0 and " + MAX_TRANSFERS);
+            }
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (Journey journey : trainManager.findJourneys(require(params, "from"), require(params, "to"), maxTransfers)) {
+            result.append(journey).append('\n');
+        }
+        return result.toString();
+    }
+
+    private String handleEarliest(HttpExchange exchange, Map<String, String> params) throws IOException {
+        int day = LocalDate.now().getDayOfWeek().getValue() - 1;
+        int departAfter;
+        try {
+            if (params.containsKey("day")) {
+                day = Timetable.parseDay(params.get("day"));
+            }
+            departAfter = Timetable.parseTime(require(params, "after"));
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, e.getMessage());
+        }
+
+        Journey journey = trainManager.findEarliestArrival(require(params, "from"), require(params, "to"), day, departAfter);
+        return journey == null ? "" : "arrive " + Timetable.formatTime(journey.getArrivalTime()) + ": " + journey + "\n";
+    }
+
+    private String handleHubs(HttpExchange exchange, Map<String, String> params) throws IOException {
+        int limit = DEFAULT_HUB_LIMIT;
+        if (params.containsKey("limit")) {
+            try {
+                limit = Integer.parseInt(params.get("limit"));
+            } catch (NumberFormatException e) {
+                throw new HttpError(400, "limit must be a number");
+            }
+            if (limit < 0) {
+                throw new HttpError(400, "limit must not be negative");
+            }
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (StationHubs.Hub hub : trainManager.findHubs(limit)) {
+            result.append(hub).append('\n');
+        }
+        return result.toString();
+    }
+
+    private String handleTransfers(HttpExchange exchange, Map<String, String> params) throws IOException {
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                StringBuilder result = new StringBuilder();
+                trainManager.getMinimumTransferTimes().entrySet().stream()
+                        .sorted(Map.Entry.comparingByKey())
+                        .forEach(entry -> result.append(entry.getKey()).append(':').append(entry.getValue()).append('\n'));
+                return result.toString();
+            case "PUT":
+                String station = require(params, "station");
+                int minutes;
+                try {
+                    minutes = Integer.parseInt(require(params, "minutes"));
+                } catch (NumberFormatException e) {
+                    throw new HttpError(400, "minutes must be a number");
+                }
+                if (minutes < 0) {
+                    throw new HttpError(400, "minutes must not be negative");
+                }
+                trainManager.setMinimumTransferTime(station, minutes);
+                return "OK\n";
+            default:
+                throw new HttpError(405, "Method not allowed");
+        }
+    }
+
+    private String metrics() {
+        StringBuilder result = new StringBuilder();
+        result.append("in_flight ").append(maxInFlight - inFlight.availablePermits()).append('\n');
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            result.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+        }
+        result.append(trainManager.getMetrics().dump());
+        return result.toString();
+    }
+
+    private static String formatTrains(List<Train> trains) {
+        StringBuilder result = new StringBuilder();
+        for (Train train : trains) {
+            result.append(train.toText()).append('\n');
+        }
+        return result.toString();
+    }
+
+    private static Train parseTrain(String body) throws HttpError {
+        String[] parts = body.trim().split(":", 2);
+        if (parts.length != 2 || parts[0].trim().isEmpty()) {
+            throw new HttpError(400, "Expected 'name:station,station,...' or 'name:station|HH:MM|HH:MM,...'");
+        }
+
+        List<String> stops = Arrays.stream(parts[1].split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+        Train train;
+        try {
+            train = Train.parse(parts[0], stops);
+        } catch (IllegalArgumentException e) {
+            throw new HttpError(400, e.getMessage());
+        }
+        List<String> stations = train.getStations();
+        if (stations.size() < 2) {
+            throw new HttpError(400, "A train must have at least two stations.");
+        }
+        if (stations.stream().distinct().count() != stations.size()) {
+            throw new HttpError(400, "Duplicate stations are not allowed in a single route.");
+        }
+        return train;
+    }
+
+    private static String require(Map<String, String> params, String name) throws HttpError {
+        String value = params.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new HttpError(400, "Missing parameter '" + name + "'");
+        }
+        return value.trim();
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new HttpError(413, "Request body too large");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,423 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class RegionalTrainManager {
+
+    private static final int MAX_SEGMENT_TRANSFERS = RouteMatrix.MAX_TRANSFERS;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private static final class BorderOverlay {
+        private final NetworkSnapshot[] snapshots;
+        private final List<String> borders;
+        private final Map<String, Integer> borderIds;
+        private final int[][] regionBorders;
+        private final int[][] regionStations;
+        private final byte[][][] regionRows;
+
+        BorderOverlay(NetworkSnapshot[] snapshots, BorderOverlay previous) {
+            this.snapshots = snapshots;
+
+            Map<String, Integer> regionCounts = new HashMap<>();
+            Map<String, String> names = new LinkedHashMap<>();
+            for (NetworkSnapshot snapshot : snapshots) {
+                RoutingNetwork network = snapshot.getNetwork();
+                for (int station = 0; station < network.getStationCount(); station++) {
+                    if (network.getGraph().getDegree(station) > 0) {
+                        String key = StationIndex.normalize(network.getStationName(station));
+                        regionCounts.merge(key, 1, Integer::sum);
+                        names.putIfAbsent(key, network.getStationName(station));
+                    }
+                }
+            }
+            this.borders = new ArrayList<>();
+            this.borderIds = new HashMap<>();
+            for (Map.Entry<String, String> name : names.entrySet()) {
+                if (regionCounts.get(name.getKey()) > 1) {
+                    borderIds.put(name.getKey(), borders.size());
+                    borders.add(name.getValue());
+                }
+            }
+
+            this.regionBorders = new int[snapshots.length][];
+            this.regionStations = new int[snapshots.length][];
+            this.regionRows = new byte[snapshots.length][][];
+            for (int region = 0; region < snapshots.length; region++) {
+                RoutingNetwork network = snapshots[region].getNetwork();
+                List<Integer> ids = new ArrayList<>();
+                for (int b = 0; b < borders.size(); b++) {
+                    if (contains(network, borders.get(b))) {
+                        ids.add(b);
+                    }
+                }
+                int[] local = ids.stream().mapToInt(Integer::intValue).toArray();
+                int[] stations = new int[local.length];
+                byte[][] rows = new byte[local.length][];
+                Map<String, byte[]> reusable = previous == null
+                        ? Collections.emptyMap()
+                        : previous.rowsFor(region, snapshots[region]);
+                int[] slots = new int[network.getStationCount()];
+                List<Integer> missing = new ArrayList<>();
+                for (int i = 0; i < local.length; i++) {
+                    String border = borders.get(local[i]);
+                    stations[i] = network.findStation(border);
+                    rows[i] = reusable.get(StationIndex.normalize(border));
+                    if (rows[i] == null) {
+                        slots[stations[i]] = i;
+                        missing.add(stations[i]);
+                    }
+                }
+                snapshots[region].forEachTransferRow(missing.stream().mapToInt(Integer::intValue).toArray(),
+                        MAX_SEGMENT_TRANSFERS,
+                        (origin, row) -> rows[slots[origin]] = Arrays.copyOf(row, network.getStationCount()));
+                regionBorders[region] = local;
+                regionStations[region] = stations;
+                regionRows[region] = rows;
+            }
+        }
+
+        private Map<String, byte[]> rowsFor(int region, NetworkSnapshot snapshot) {
+            if (region >= snapshots.length || snapshots[region] != snapshot) {
+                return Collections.emptyMap();
+            }
+            Map<String, byte[]> rows = new HashMap<>();
+            for (int i = 0; i < regionBorders[region].length; i++) {
+                rows.put(StationIndex.normalize(borders.get(regionBorders[region][i])), regionRows[region][i]);
+            }
+            return rows;
+        }
+
+        boolean isCurrent(NetworkSnapshot[] current) {
+            return Arrays.equals(snapshots, current, (a, b) -> a == b ? 0 : 1);
+        }
+
+        int borderId(String station) {
+            Integer id = borderIds.get(StationIndex.normalize(station));
+            return id == null ? -1 : id;
+        }
+
+        int trainsBetween(int region, int from, int to) {
+            return trainsFor(regionRows[region][from][regionStations[region][to]]);
+        }
+    }
+
+    private static final class Segment {
+        private final int region;
+        private final String from;
+        private final String to;
+        private final int transfers;
+
+        Segment(int region, String from, String to, int transfers) {
+            this.region = region;
+            this.from = from;
+            this.to = to;
+            this.transfers = transfers;
+        }
+    }
+
+    private final List<String> regionNames;
+    private final List<ConcurrentTrainManager> regions;
+    private final Map<String, Integer> regionIds;
+    private final ExecutorService borderExecutor;
+    private final Object refreshLock;
+    private CompletableFuture<Void> queuedRefresh;
+    private volatile BorderOverlay overlay;
+
+    public RegionalTrainManager(Map<String, TrainManager> managers) {
+        this.regionNames = new ArrayList<>(managers.keySet());
+        this.regions = new ArrayList<>(managers.size());
+        this.regionIds = new HashMap<>();
+        for (Map.Entry<String, TrainManager> manager : managers.entrySet()) {
+            regionIds.put(manager.getKey(), regions.size());
+            regions.add(new ConcurrentTrainManager(manager.getValue()));
+        }
+        this.borderExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "region-borders");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refreshLock = new Object();
+    }
+
+    public static RegionalTrainManager load(Path directory, List<String> regionNames) {
+        Map<String, TrainManager> managers = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, regionNames.size()));
+        try {
+            List<CompletableFuture<TrainManager>> loads = regionNames.stream()
+                    .map(region -> CompletableFuture.supplyAsync(
+                            () -> new TrainManager(directory.resolve(region).toString()), executor))
+                    .collect(Collectors.toList());
+            for (int i = 0; i < regionNames.size(); i++) {
+                managers.put(regionNames.get(i), loads.get(i).join());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return new RegionalTrainManager(managers);
+    }
+
+    public List<String> getRegions() {
+        return Collections.unmodifiableList(regionNames);
+    }
+
+    public ConcurrentTrainManager getRegion(String region) {
+        Integer id = regionIds.get(region);
+        if (id == null) {
+            throw new IllegalArgumentException("unknown region '" + region + "'");
+        }
+        return regions.get(id);
+    }
+
+    public List<String> findRegions(String station) {
+        List<String> result = new ArrayList<>();
+        for (int region = 0; region < regions.size(); region++) {
+            if (contains(regions.get(region).snapshot().getNetwork(), station)) {
+                result.add(regionNames.get(region));
+            }
+        }
+        return result;
+    }
+
+    public List<String> getBorderStations() {
+        return Collections.unmodifiableList(overlay().borders);
+    }
+
+    public boolean addTrain(String region, Train train) {
+        boolean added = getRegion(region).addTrain(train);
+        refreshBorders();
+        return added;
+    }
+
+    public void removeTrain(String region, String trainName) {
+        getRegion(region).removeTrain(trainName);
+        refreshBorders();
+    }
+
+    public CompletableFuture<Void> refreshBorders() {
+        synchronized (refreshLock) {
+            if (queuedRefresh == null) {
+                CompletableFuture<Void> refresh = new CompletableFuture<>();
+                queuedRefresh = refresh;
+                borderExecutor.execute(() -> {
+                    synchronized (refreshLock) {
+                        queuedRefresh = null;
+                    }
+                    try {
+                        NetworkSnapshot[] snapshots = snapshots();
+                        BorderOverlay current = overlay;
+                        if (current == null || !current.isCurrent(snapshots)) {
+                            overlay = new BorderOverlay(snapshots, current);
+                        }
+                        refresh.complete(null);
+                    } catch (RuntimeException e) {
+                        refresh.completeExceptionally(e);
+                    }
+                });
+            }
+            return queuedRefresh;
+        }
+    }
+
+    public List<Journey> findJourneys(String start, String end, int maxTransfers) {
+        List<Journey> candidates = new ArrayList<>();
+        for (NetworkSnapshot snapshot : snapshots()) {
+            if (contains(snapshot.getNetwork(), start) && contains(snapshot.getNetwork(), end)) {
+                candidates.addAll(snapshot.findJourneys(start, end, maxTransfers));
+            }
+        }
+        Journey crossing = findCrossRegionJourney(start, end);
+        if (crossing != null && crossing.getTransfers() <= maxTransfers) {
+            candidates.add(crossing);
+        }
+
+        candidates.sort(Comparator.comparingInt(Journey::getTransfers).thenComparingInt(Journey::getNumberOfStops));
+        List<Journey> journeys = new ArrayList<>();
+        for (Journey journey : candidates) {
+            Journey last = journeys.isEmpty() ? null : journeys.get(journeys.size() - 1);
+            if (last == null || journey.getNumberOfStops() < last.getNumberOfStops()) {
+                journeys.add(journey);
+            }
+        }
+        return Collections.unmodifiableList(journeys);
+    }
+
+    public Journey findCrossRegionJourney(String start, String end) {
+        BorderOverlay overlay = overlay();
+        int borderCount = overlay.borders.size();
+        int[] trains = new int[borderCount];
+        int[] previous = new int[borderCount];
+        int[] previousRegion = new int[borderCount];
+        Arrays.fill(trains, UNREACHED);
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+
+        for (int region = 0; region < overlay.snapshots.length; region++) {
+            NetworkSnapshot snapshot = overlay.snapshots[region];
+            if (!contains(snapshot.getNetwork(), start)) {
+                continue;
+            }
+            int[] local = overlay.regionBorders[region];
+            RouteMatrix row = snapshot.findTransferMatrix(List.of(start), names(overlay, local), MAX_SEGMENT_TRANSFERS);
+            for (int i = 0; i < local.length; i++) {
+                int cost = local[i] == overlay.borderId(start) ? 0 : trainsFor(row.getTransfers(0, i));
+                if (cost < trains[local[i]]) {
+                    trains[local[i]] = cost;
+                    previous[local[i]] = -1;
+                    previousRegion[local[i]] = region;
+                    queue.add(new long[]{cost, local[i]});
+                }
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            long[] entry = queue.poll();
+            int border = (int) entry[1];
+            if (entry[0] > trains[border]) {
+                continue;
+            }
+            for (int region = 0; region < overlay.snapshots.length; region++) {
+                int[] local = overlay.regionBorders[region];
+                int from = Arrays.binarySearch(local, border);
+                if (from < 0) {
+                    continue;
+                }
+                for (int to = 0; to < local.length; to++) {
+                    int cost = overlay.trainsBetween(region, from, to);
+                    if (cost != UNREACHED && trains[border] + cost < trains[local[to]]) {
+                        trains[local[to]] = trains[border] + cost;
+                        previous[local[to]] = border;
+                        previousRegion[local[to]] = region;
+                        queue.add(new long[]{trains[local[to]], local[to]});
+                    }
+                }
+            }
+        }
+
+        int best = UNREACHED;
+        int bestBorder = -1;
+        int bestRegion = -1;
+        int bestCost = 0;
+        for (int region = 0; region < overlay.snapshots.length; region++) {
+            NetworkSnapshot snapshot = overlay.snapshots[region];
+            if (!contains(snapshot.getNetwork(), end)) {
+                continue;
+            }
+            int[] local = overlay.regionBorders[region];
+            int destination = snapshot.getNetwork().findStation(end);
+            for (int i = 0; i < local.length; i++) {
+                int cost = local[i] == overlay.borderId(end) ? 0 : trainsFor(overlay.regionRows[region][i][destination]);
+                if (trains[local[i]] != UNREACHED && cost != UNREACHED && trains[local[i]] + cost < best) {
+                    best = trains[local[i]] + cost;
+                    bestBorder = local[i];
+                    bestRegion = region;
+                    bestCost = cost;
+                }
+            }
+        }
+        if (bestBorder == -1) {
+            return null;
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        if (bestCost > 0) {
+            segments.add(new Segment(bestRegion, overlay.borders.get(bestBorder), end, bestCost - 1));
+        }
+        int border = bestBorder;
+        while (border != -1) {
+            int from = previous[border];
+            int cost = trains[border] - (from == -1 ? 0 : trains[from]);
+            if (cost > 0) {
+                String origin = from == -1 ? start : overlay.borders.get(from);
+                segments.add(new Segment(previousRegion[border], origin, overlay.borders.get(border), cost - 1));
+            }
+            border = from;
+        }
+        Collections.reverse(segments);
+
+        List<Journey.Leg> legs = new ArrayList<>();
+        for (Segment segment : segments) {
+            Journey part = null;
+            for (Journey journey : overlay.snapshots[segment.region].findJourneys(segment.from, segment.to,
+                    segment.transfers)) {
+                if (part == null || journey.getTransfers() < part.getTransfers()) {
+                    part = journey;
+                }
+            }
+            if (part == null) {
+                return null;
+            }
+            legs.addAll(part.getLegs());
+        }
+        return legs.isEmpty() ? null : new Journey(legs);
+    }
+
+    public void saveAll() {
+        forEachRegion(manager -> {
+            manager.saveToFile();
+            return null;
+        });
+    }
+
+    public void close() {
+        borderExecutor.shutdown();
+        forEachRegion(manager -> {
+            manager.saveToFile();
+            manager.close();
+            return null;
+        });
+    }
+
+    private void forEachRegion(Function<TrainManager, Void> operation) {
+        CompletableFuture.allOf(regions.stream()
+                .map(region -> region.submit(operation))
+                .toArray(CompletableFuture[]::new)).join();
+    }
+
+    private NetworkSnapshot[] snapshots() {
+        NetworkSnapshot[] snapshots = new NetworkSnapshot[regions.size()];
+        for (int region = 0; region < snapshots.length; region++) {
+            snapshots[region] = regions.get(region).snapshot();
+        }
+        return snapshots;
+    }
+
+    private BorderOverlay overlay() {
+        BorderOverlay current = overlay;
+        if (current == null) {
+            refreshBorders().join();
+            return overlay;
+        }
+        if (!current.isCurrent(snapshots())) {
+            refreshBorders();
+        }
+        return current;
+    }
+
+    private static List<String> names(BorderOverlay overlay, int[] borders) {
+        List<String> names = new ArrayList<>(borders.length);
+        for (int border : borders) {
+            names.add(overlay.borders.get(border));
+        }
+        return names;
+    }
+
+    private static int trainsFor(int transfers) {
+        return transfers == RouteMatrix.NO_ROUTE ? UNREACHED : transfers + 1;
+    }
+
+    private static boolean contains(RoutingNetwork network, String station) {
+        int id = network.findStation(station);
+        return id != -1 && network.getGraph().getDegree(id) > 0;
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RouteCache {
+
+    private static final class Entry {
+        private final String from;
+        private final String to;
+        private final List<Journey> journeys;
+        private final BitSet reachedStations;
+
+        Entry(String from, String to, List<Journey> journeys, BitSet reachedStations) {
+            this.from = from;
+            this.to = to;
+            this.journeys = journeys;
+            this.reachedStations = reachedStations;
+        }
+
+        boolean uses(Train train) {
+            for (Journey journey : journeys) {
+                for (Journey.Leg leg : journey.getLegs()) {
+                    if (leg.getTrain() == train) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long generation;
+
+    public RouteCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > RouteCache.this.capacity;
+            }
+        };
+    }
+
+    private static String key(String from, String to, int maxTransfers) {
+        return from + '\n' + to + '\n' + maxTransfers;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized List<Journey> get(String start, String end, int maxTransfers, long generation) {
+        Entry entry = generation != this.generation
+                ? null
+                : entries.get(key(StationIndex.normalize(start), StationIndex.normalize(end), maxTransfers));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.journeys;
+    }
+
+    public synchronized void put(String start, String end, int maxTransfers, List<Journey> journeys,
+            BitSet reachedStations, long generation) {
+        if (capacity <= 0 || generation != this.generation) {
+            return;
+        }
+        String from = StationIndex.normalize(start);
+        String to = StationIndex.normalize(end);
+        entries.put(key(from, to, maxTransfers), new Entry(from, to, journeys, reachedStations));
+    }
+
+    public synchronized void trainAdded(Train train, StationInterner interner) {
+        generation++;
+        BitSet trainStations = new BitSet();
+        for (String station : train.getStations()) {
+            int id = interner.find(station);
+            if (id != -1) {
+                trainStations.set(id);
+            }
+        }
+
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.reachedStations.intersects(trainStations) || servesEndpoint(train, entry)) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    private boolean servesEndpoint(Train train, Entry entry) {
+        for (String station : train.getStations()) {
+            String key = StationIndex.normalize(station);
+            if (key.equals(entry.from) || key.equals(entry.to)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void trainRemoved(Train train) {
+        generation++;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().uses(train)) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,321 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+public class RouteEngine {
+
+    public interface Progress {
+        void journeyFound(Journey journey);
+
+        boolean isCancelled();
+    }
+
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private int[] best = new int[0];
+    private int[] roundValue = new int[0];
+    private int[] markStamp = new int[0];
+    private int[] improvedStamp = new int[0];
+    private int[] marked = new int[0];
+    private int[] improved = new int[0];
+    private int[] touched = new int[0];
+    private int[] trainStamp = new int[0];
+    private int[] trainFirstStop = new int[0];
+    private int[] queuedTrains = new int[0];
+    private int[][] parentTrain = new int[0][];
+    private int[][] parentBoard = new int[0][];
+    private int[][] parentAlight = new int[0][];
+    private int epoch;
+
+    public List<Journey> search(RoutingNetwork network, String start, String end, int maxTransfers) {
+        return search(network, start, end, maxTransfers, null);
+    }
+
+    public List<Journey> search(RoutingNetwork network, String start, String end, int maxTransfers,
+            BitSet reachedStations) {
+        return search(network, start, end, maxTransfers, reachedStations, null);
+    }
+
+    public List<Journey> search(RoutingNetwork network, String start, String end, int maxTransfers,
+            BitSet reachedStations, Progress progress) {
+        int from = network.findStation(start);
+        int to = network.findStation(end);
+        if (from == -1 || to == -1 || from == to || maxTransfers < 0) {
+            return Collections.emptyList();
+        }
+
+        int rounds = maxTransfers == Integer.MAX_VALUE ? maxTransfers : maxTransfers + 1;
+        ensureCapacity(network.getStationCount(), network.getTrainCount(), 1);
+        if (epoch > Integer.MAX_VALUE - 3) {
+            Arrays.fill(markStamp, 0);
+            Arrays.fill(improvedStamp, 0);
+            Arrays.fill(trainStamp, 0);
+            epoch = 0;
+        }
+
+        List<Journey> journeys = Collections.emptyList();
+        int touchedCount = 0;
+        best[from] = 0;
+        touched[touchedCount++] = from;
+
+        int markEpoch = nextEpoch();
+        markStamp[from] = markEpoch;
+        roundValue[from] = 0;
+        marked[0] = from;
+        int markedCount = 1;
+
+        for (int round = 1; round <= rounds && markedCount > 0; round++) {
+            if (progress != null && progress.isCancelled()) {
+                break;
+            }
+            ensureRounds(round);
+            if (epoch > Integer.MAX_VALUE - 2) {
+                markEpoch = rebaseEpochs(markEpoch);
+            }
+            int queueEpoch = nextEpoch();
+            int queuedCount = 0;
+            for (int m = 0; m < markedCount; m++) {
+                int station = marked[m];
+                for (int stop = network.getStopStart(station); stop < network.getStopEnd(station); stop++) {
+                    int train = network.getStopTrain(stop);
+                    int position = network.getStopPosition(stop);
+                    if (trainStamp[train] != queueEpoch) {
+                        trainStamp[train] = queueEpoch;
+                        trainFirstStop[train] = position;
+                        queuedTrains[queuedCount++] = train;
+                    } else if (position < trainFirstStop[train]) {
+                        trainFirstStop[train] = position;
+                    }
+                }
+            }
+
+            int improvedEpoch = nextEpoch();
+            int improvedCount = 0;
+            int[] roundTrain = parentTrain[round - 1];
+            int[] roundBoard = parentBoard[round - 1];
+            int[] roundAlight = parentAlight[round - 1];
+
+            for (int q = 0; q < queuedCount; q++) {
+                int train = queuedTrains[q];
+                int[] stops = network.getTrainStops(train);
+                int boardPosition = -1;
+                int boardValue = 0;
+
+                for (int i = trainFirstStop[train]; i < stops.length; i++) {
+                    int station = stops[i];
+
+                    if (boardPosition != -1) {
+                        int value = boardValue + i;
+                        if (value < best[station] && value < best[to]) {
+                            if (best[station] == UNREACHED) {
+                                touched[touchedCount++] = station;
+                            }
+                            best[station] = value;
+                            if (improvedStamp[station] != improvedEpoch) {
+                                improvedStamp[station] = improvedEpoch;
+                                improved[improvedCount++] = station;
+                            }
+                            roundTrain[station] = train;
+                            roundBoard[station] = boardPosition;
+                            roundAlight[station] = i;
+                        }
+                    }
+
+                    if (markStamp[station] == markEpoch
+                            && (boardPosition == -1 || roundValue[station] - i < boardValue)) {
+                        boardPosition = i;
+                        boardValue = roundValue[station] - i;
+                    }
+                }
+            }
+
+            if (improvedStamp[to] == improvedEpoch) {
+                if (journeys.isEmpty()) {
+                    journeys = new ArrayList<>();
+                }
+                Journey journey = reconstruct(network, from, to, round);
+                journeys.add(journey);
+                if (progress != null) {
+                    progress.journeyFound(journey);
+                }
+            }
+
+            for (int m = 0; m < improvedCount; m++) {
+                roundValue[improved[m]] = best[improved[m]];
+            }
+            int[] swapStamp = markStamp;
+            markStamp = improvedStamp;
+            improvedStamp = swapStamp;
+            int[] swapList = marked;
+            marked = improved;
+            improved = swapList;
+            markEpoch = improvedEpoch;
+            markedCount = improvedCount;
+        }
+
+        for (int i = 0; i < touchedCount; i++) {
+            if (reachedStations != null) {
+                reachedStations.set(touched[i]);
+            }
+            best[touched[i]] = UNREACHED;
+        }
+        return Collections.unmodifiableList(journeys);
+    }
+
+    public static List<Train> findOneTransfer(String start, String end, Function<String, List<Train>> trainsAt) {
+        for (Train first : trainsAt.apply(start)) {
+            List<String> stations = first.getStations();
+            int board = indexOf(stations, start, 0);
+            for (int i = board + 1; board != -1 && i < stations.size(); i++) {
+                for (Train second : trainsAt.apply(stations.get(i))) {
+                    List<String> next = second.getStations();
+                    int change = indexOf(next, stations.get(i), 0);
+                    if (!second.equals(first) && change != -1 && indexOf(next, end, change + 1) != -1) {
+                        List<Train> result = new ArrayList<>();
+                        result.add(first);
+                        result.add(second);
+                        return result;
+                    }
+                }
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    private static int indexOf(List<String> stations, String station, int from) {
+        for (int i = from; i < stations.size(); i++) {
+            if (stations.get(i).equalsIgnoreCase(station)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void transfersFrom(RoutingNetwork network, int from, int maxTransfers, byte[] transfers) {
+        int stationCount = network.getStationCount();
+        Arrays.fill(transfers, 0, stationCount, RouteMatrix.NO_ROUTE);
+        if (from < 0 || maxTransfers < 0) {
+            return;
+        }
+
+        int rounds = Math.min(maxTransfers, RouteMatrix.MAX_TRANSFERS) + 1;
+        ensureCapacity(stationCount, network.getTrainCount(), 0);
+        if (epoch > Integer.MAX_VALUE - rounds - 2) {
+            Arrays.fill(markStamp, 0);
+            Arrays.fill(improvedStamp, 0);
+            Arrays.fill(trainStamp, 0);
+            epoch = 0;
+        }
+
+        int reachedEpoch = nextEpoch();
+        improvedStamp[from] = reachedEpoch;
+        marked[0] = from;
+        int markedCount = 1;
+
+        for (int round = 1; round <= rounds && markedCount > 0; round++) {
+            int queueEpoch = nextEpoch();
+            int queuedCount = 0;
+            for (int m = 0; m < markedCount; m++) {
+                int station = marked[m];
+                for (int stop = network.getStopStart(station); stop < network.getStopEnd(station); stop++) {
+                    int train = network.getStopTrain(stop);
+                    int position = network.getStopPosition(stop);
+                    if (trainStamp[train] != queueEpoch) {
+                        trainStamp[train] = queueEpoch;
+                        trainFirstStop[train] = position;
+                        queuedTrains[queuedCount++] = train;
+                    } else if (position < trainFirstStop[train]) {
+                        trainFirstStop[train] = position;
+                    }
+                }
+            }
+
+            int improvedCount = 0;
+            byte value = (byte) (round - 1);
+            for (int q = 0; q < queuedCount; q++) {
+                int[] stops = network.getTrainStops(queuedTrains[q]);
+                for (int i = trainFirstStop[queuedTrains[q]] + 1; i < stops.length; i++) {
+                    int station = stops[i];
+                    if (improvedStamp[station] != reachedEpoch) {
+                        improvedStamp[station] = reachedEpoch;
+                        transfers[station] = value;
+                        improved[improvedCount++] = station;
+                    }
+                }
+            }
+
+            int[] swapList = marked;
+            marked = improved;
+            improved = swapList;
+            markedCount = improvedCount;
+        }
+        transfers[from] = RouteMatrix.NO_ROUTE;
+    }
+
+    private Journey reconstruct(RoutingNetwork network, int from, int to, int round) {
+        List<Journey.Leg> legs = new ArrayList<>(round);
+        int station = to;
+        for (int k = round - 1; k >= 0 && station != from; k--) {
+            int train = parentTrain[k][station];
+            int board = parentBoard[k][station];
+            legs.add(new Journey.Leg(network.getTrain(train), board, parentAlight[k][station]));
+            station = network.getTrainStops(train)[board];
+        }
+        Collections.reverse(legs);
+        return new Journey(legs);
+    }
+
+    private int rebaseEpochs(int markEpoch) {
+        for (int station = 0; station < markStamp.length; station++) {
+            markStamp[station] = markStamp[station] == markEpoch ? 1 : 0;
+        }
+        Arrays.fill(improvedStamp, 0);
+        Arrays.fill(trainStamp, 0);
+        epoch = 1;
+        return epoch;
+    }
+
+    private int nextEpoch() {
+        return ++epoch;
+    }
+
+    private void ensureCapacity(int stationCount, int trainCount, int rounds) {
+        if (best.length < stationCount) {
+            best = new int[stationCount];
+            Arrays.fill(best, UNREACHED);
+            roundValue = new int[stationCount];
+            markStamp = new int[stationCount];
+            improvedStamp = new int[stationCount];
+            marked = new int[stationCount];
+            improved = new int[stationCount];
+            touched = new int[stationCount];
+            parentTrain = new int[0][];
+            parentBoard = new int[0][];
+            parentAlight = new int[0][];
+        }
+        if (trainStamp.length < trainCount) {
+            trainStamp = new int[trainCount];
+            trainFirstStop = new int[trainCount];
+            queuedTrains = new int[trainCount];
+        }
+        ensureRounds(rounds);
+    }
+
+    private void ensureRounds(int rounds) {
+        int allocated = parentTrain.length;
+        if (allocated < rounds) {
+            int length = Math.max(rounds, 2 * allocated);
+            parentTrain = Arrays.copyOf(parentTrain, length);
+            parentBoard = Arrays.copyOf(parentBoard, length);
+            parentAlight = Arrays.copyOf(parentAlight, length);
+            for (int round = allocated; round < length; round++) {
+                parentTrain[round] = new int[best.length];
+                parentBoard[round] = new int[best.length];
+                parentAlight[round] = new int[best.length];
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+import java.util.Collections;
+import java.util.List;
+
+public class RouteMatrix {
+
+    public static final byte NO_ROUTE = -1;
+    public static final int MAX_TRANSFERS = Byte.MAX_VALUE;
+
+    private final List<String> origins;
+    private final List<String> destinations;
+    private final byte[] transfers;
+
+    RouteMatrix(List<String> origins, List<String> destinations, byte[] transfers) {
+        this.origins = Collections.unmodifiableList(origins);
+        this.destinations = Collections.unmodifiableList(destinations);
+        this.transfers = transfers;
+    }
+
+    public List<String> getOrigins() {
+        return origins;
+    }
+
+    public List<String> getDestinations() {
+        return destinations;
+    }
+
+    public int getTransfers(int origin, int destination) {
+        return transfers[origin * destinations.size() + destination];
+    }
+
+    public boolean isReachable(int origin, int destination) {
+        return getTransfers(origin, destination) != NO_ROUTE;
+    }
+
+    public boolean isDirect(int origin, int destination) {
+        return getTransfers(origin, destination) == 0;
+    }
+
+    public long countReachable() {
+        long count = 0;
+        for (byte value : transfers) {
+            if (value != NO_ROUTE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dx%d route matrix, %d reachable pairs", origins.size(), destinations.size(), countReachable());
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RoutingNetwork {
+
+    private final Train[] trains;
+    private final int[][] trainStops;
+    private final String[] stationNames;
+    private final Map<String, Integer> stationIds;
+    private final int[] stopOffsets;
+    private final int[] stopTrains;
+    private final int[] stopPositions;
+    private final CsrGraph graph;
+
+    private RoutingNetwork(Train[] trains, int[][] trainStops, String[] stationNames, Map<String, Integer> stationIds,
+            int[] stopOffsets, int[] stopTrains, int[] stopPositions, CsrGraph graph) {
+        this.trains = trains;
+        this.trainStops = trainStops;
+        this.stationNames = stationNames;
+        this.stationIds = stationIds;
+        this.stopOffsets = stopOffsets;
+        this.stopTrains = stopTrains;
+        this.stopPositions = stopPositions;
+        this.graph = graph;
+    }
+
+    public static RoutingNetwork build(List<Train> trainList, StationInterner interner, CustomGraph<String> stationGraph) {
+        int stationCount = interner.size();
+        Train[] trains = trainList.toArray(new Train[0]);
+        int[][] trainStops = new int[trains.length][];
+        int[] stopOffsets = new int[stationCount + 1];
+        Map<String, Integer> sharedStations = new IdentityHashMap<>(stationCount * 2);
+
+        for (int t = 0; t < trains.length; t++) {
+            List<String> stations = trains[t].getStations();
+            int[] stops = new int[stations.size()];
+            for (int i = 0; i < stops.length; i++) {
+                stops[i] = sharedStations.computeIfAbsent(stations.get(i), interner::intern);
+                stopOffsets[stops[i] + 1]++;
+            }
+            trainStops[t] = stops;
+        }
+        for (int s = 0; s < stationCount; s++) {
+            stopOffsets[s + 1] += stopOffsets[s];
+        }
+
+        int[] next = new int[stationCount];
+        System.arraycopy(stopOffsets, 0, next, 0, stationCount);
+        int[] stopTrains = new int[stopOffsets[stationCount]];
+        int[] stopPositions = new int[stopOffsets[stationCount]];
+        for (int t = 0; t < trains.length; t++) {
+            int[] stops = trainStops[t];
+            for (int i = 0; i < stops.length; i++) {
+                int slot = next[stops[i]]++;
+                stopTrains[slot] = t;
+                stopPositions[slot] = i;
+            }
+        }
+
+        String[] stationNames = new String[stationCount];
+        Map<String, Integer> stationIds = new HashMap<>(stationCount * 2);
+        for (int s = 0; s < stationCount; s++) {
+            stationNames[s] = interner.getName(s);
+            stationIds.put(StationIndex.normalize(stationNames[s]), s);
+        }
+
+        return new RoutingNetwork(trains, trainStops, stationNames, stationIds,
+                stopOffsets, stopTrains, stopPositions, CsrGraph.build(stationGraph, interner));
+    }
+
+    public int getStationCount() {
+        return stationNames.length;
+    }
+
+    public int getTrainCount() {
+        return trains.length;
+    }
+
+    public int findStation(String station) {
+        Integer id = stationIds.get(StationIndex.normalize(station));
+        return id == null ? -1 : id;
+    }
+
+    public String getStationName(int station) {
+        return stationNames[station];
+    }
+
+    public Train getTrain(int train) {
+        return trains[train];
+    }
+
+    public int[] getTrainStops(int train) {
+        return trainStops[train];
+    }
+
+    public int getStopStart(int station) {
+        return stopOffsets[station];
+    }
+
+    public int getStopEnd(int station) {
+        return stopOffsets[station + 1];
+    }
+
+    public int getStopTrain(int stop) {
+        return stopTrains[stop];
+    }
+
+    public int getStopPosition(int stop) {
+        return stopPositions[stop];
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,192 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+public class SortedTrainView {
+
+    private static final class Node {
+        private final Train train;
+        private final int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        Node(Train train, int priority) {
+            this.train = train;
+            this.priority = priority;
+        }
+    }
+
+    private final Comparator<Train> comparator;
+    private final Random random;
+    private Node root;
+
+    public SortedTrainView(Comparator<Train> comparator) {
+        this.comparator = comparator;
+        this.random = new Random();
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        return node;
+    }
+
+    public void add(Train train) {
+        root = insert(root, new Node(train, random.nextInt()));
+    }
+
+    private Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.priority > node.priority) {
+            Node[] parts = split(node, added.train);
+            added.left = parts[0];
+            added.right = parts[1];
+            return update(added);
+        }
+        if (comparator.compare(added.train, node.train) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return update(node);
+    }
+
+    private Node[] split(Node node, Train key) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (comparator.compare(node.train, key) < 0) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            parts[0] = update(node);
+            return parts;
+        }
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        parts[1] = update(node);
+        return parts;
+    }
+
+    public void remove(Train train) {
+        root = delete(root, train);
+    }
+
+    private Node delete(Node node, Train train) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(train, node.train);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = delete(node.left, train);
+        } else {
+            node.right = delete(node.right, train);
+        }
+        return update(node);
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        }
+        right.left = merge(left, right.left);
+        return update(right);
+    }
+
+    public Train get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.train;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    public int indexOf(Train train) {
+        int rank = rank(train);
+        return rank < size() && comparator.compare(train, get(rank)) == 0 ? rank : -1;
+    }
+
+    public int rank(Train train) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            if (comparator.compare(train, node.train) <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    public List<Train> page(int offset, int limit) {
+        offset = Math.max(0, offset);
+        List<Train> result = new ArrayList<>(Math.max(0, Math.min(limit, size() - offset)));
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int skip = offset;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (skip < leftSize) {
+                path.push(node);
+                node = node.left;
+            } else if (skip == leftSize) {
+                path.push(node);
+                break;
+            } else {
+                skip -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        while (!path.isEmpty() && result.size() < limit) {
+            Node next = path.pop();
+            result.add(next.train);
+            for (Node child = next.right; child != null; child = child.left) {
+                path.push(child);
+            }
+        }
+        return result;
+    }
+
+    public List<Train> toList() {
+        return page(0, size());
+    }
+
+    public void clear() {
+        root = null;
+    }
+}
\ No newline at end of file
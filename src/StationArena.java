@@ -0,0 +1,67 @@
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+public final class StationArena {
+
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+
+    private static final Map<String, WeakReference<String>> NAMES = new WeakHashMap<>();
+
+    private StationArena() {
+    }
+
+    public static String intern(String station) {
+        synchronized (NAMES) {
+            WeakReference<String> reference = NAMES.get(station);
+            String name = reference == null ? null : reference.get();
+            if (name == null) {
+                name = station;
+                NAMES.put(name, new WeakReference<>(name));
+            }
+            return name;
+        }
+    }
+
+    public static int size() {
+        synchronized (NAMES) {
+            return NAMES.size();
+        }
+    }
+
+    public static long getHeapBytes() {
+        List<String> names;
+        synchronized (NAMES) {
+            names = new ArrayList<>(NAMES.keySet());
+        }
+        long bytes = arrayBytes(names.size() * 4 / 3 + 1, REFERENCE_BYTES);
+        for (String name : names) {
+            bytes += stringBytes(name);
+        }
+        long entryBytes = objectBytes(4 * REFERENCE_BYTES + 4 + REFERENCE_BYTES)
+                + objectBytes(4 * REFERENCE_BYTES);
+        return bytes + (long) names.size() * entryBytes;
+    }
+
+    static long stringBytes(String value) {
+        boolean latin1 = value.chars().allMatch(c -> c < 0x100);
+        long chars = latin1 ? value.length() : 2L * value.length();
+        return align(OBJECT_HEADER_BYTES + REFERENCE_BYTES + 4 + 4) + align(ARRAY_HEADER_BYTES + chars);
+    }
+
+    static long arrayBytes(int length, int elementBytes) {
+        return align(ARRAY_HEADER_BYTES + (long) length * elementBytes);
+    }
+
+    static long objectBytes(int fieldBytes) {
+        return align(OBJECT_HEADER_BYTES + fieldBytes);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
@@ -0,0 +1,141 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class StationAutocomplete {
+
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private final JTextField field;
+    private final Supplier<StationTrie> stations;
+    private final DefaultListModel<String> suggestions;
+    private final JList<String> suggestionList;
+    private final JPopupMenu popup;
+    private String applied;
+
+    private StationAutocomplete(JTextField field, Supplier<StationTrie> stations) {
+        this.field = field;
+        this.stations = stations;
+        this.suggestions = new DefaultListModel<>();
+        this.suggestionList = new JList<>(suggestions);
+        this.popup = new JPopupMenu();
+
+        suggestionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        suggestionList.setFocusable(false);
+        suggestionList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = suggestionList.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    apply(suggestions.get(index));
+                }
+            }
+        });
+        popup.setFocusable(false);
+        popup.add(new JScrollPane(suggestionList));
+    }
+
+    public static StationAutocomplete install(JTextField field, Supplier<StationTrie> stations) {
+        StationAutocomplete autocomplete = new StationAutocomplete(field, stations);
+        autocomplete.bind();
+        return autocomplete;
+    }
+
+    private void bind() {
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                SwingUtilities.invokeLater(StationAutocomplete.this::refresh);
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                SwingUtilities.invokeLater(StationAutocomplete.this::refresh);
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                popup.setVisible(false);
+            }
+        });
+
+        InputMap inputs = field.getInputMap(JComponent.WHEN_FOCUSED);
+        ActionMap actions = field.getActionMap();
+        inputs.put(KeyStroke.getKeyStroke("DOWN"), "autocomplete-next");
+        inputs.put(KeyStroke.getKeyStroke("UP"), "autocomplete-previous");
+        inputs.put(KeyStroke.getKeyStroke("ESCAPE"), "autocomplete-hide");
+        inputs.put(KeyStroke.getKeyStroke("ENTER"), "autocomplete-accept");
+        actions.put("autocomplete-next", action(() -> move(1)));
+        actions.put("autocomplete-previous", action(() -> move(-1)));
+        actions.put("autocomplete-hide", action(() -> popup.setVisible(false)));
+        actions.put("autocomplete-accept", action(() -> {
+            if (popup.isVisible() && suggestionList.getSelectedValue() != null) {
+                apply(suggestionList.getSelectedValue());
+            } else {
+                field.postActionEvent();
+            }
+        }));
+    }
+
+    private static Action action(Runnable body) {
+        return new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                body.run();
+            }
+        };
+    }
+
+    private void move(int delta) {
+        if (!popup.isVisible() || suggestions.isEmpty()) {
+            return;
+        }
+        int index = Math.floorMod(suggestionList.getSelectedIndex() + delta, suggestions.size());
+        suggestionList.setSelectedIndex(index);
+        suggestionList.ensureIndexIsVisible(index);
+    }
+
+    private void refresh() {
+        String text = field.getText();
+        if (text.equals(applied) || !field.isShowing()) {
+            return;
+        }
+        applied = null;
+        List<String> matches = text.trim().isEmpty()
+                ? List.of()
+                : stations.get().suggest(text, MAX_SUGGESTIONS);
+        if (matches.isEmpty() || (matches.size() == 1 && matches.get(0).equalsIgnoreCase(text.trim()))) {
+            popup.setVisible(false);
+            return;
+        }
+
+        suggestions.clear();
+        for (String match : matches) {
+            suggestions.addElement(match);
+        }
+        suggestionList.setVisibleRowCount(matches.size());
+        suggestionList.setSelectedIndex(0);
+        popup.pack();
+        if (!popup.isVisible()) {
+            popup.show(field, 0, field.getHeight());
+        }
+    }
+
+    private void apply(String station) {
+        applied = station;
+        field.setText(station);
+        popup.setVisible(false);
+    }
+}
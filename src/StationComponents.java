@@ -0,0 +1,85 @@
+import java.util.Arrays;
+
+public class StationComponents {
+
+    private int[] parents;
+    private int[] sizes;
+    private int stationCount;
+    private int componentCount;
+
+    public StationComponents() {
+        this.parents = new int[16];
+        this.sizes = new int[16];
+    }
+
+    public void ensureStations(int count) {
+        if (count <= stationCount) {
+            return;
+        }
+        if (count > parents.length) {
+            int capacity = Math.max(count, parents.length * 2);
+            parents = Arrays.copyOf(parents, capacity);
+            sizes = Arrays.copyOf(sizes, capacity);
+        }
+        for (int station = stationCount; station < count; station++) {
+            parents[station] = station;
+            sizes[station] = 1;
+        }
+        componentCount += count - stationCount;
+        stationCount = count;
+    }
+
+    public int find(int station) {
+        while (parents[station] != station) {
+            parents[station] = parents[parents[station]];
+            station = parents[station];
+        }
+        return station;
+    }
+
+    public boolean union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (sizes[rootA] < sizes[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parents[rootB] = rootA;
+        sizes[rootA] += sizes[rootB];
+        componentCount--;
+        return true;
+    }
+
+    public boolean isConnected(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    public int getComponentSize(int station) {
+        return sizes[find(station)];
+    }
+
+    public int getStationCount() {
+        return stationCount;
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public int[] labels() {
+        int[] labels = new int[stationCount];
+        for (int station = 0; station < stationCount; station++) {
+            labels[station] = find(station);
+        }
+        return labels;
+    }
+
+    public void clear() {
+        stationCount = 0;
+        componentCount = 0;
+    }
+}
@@ -0,0 +1,173 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class StationHubs {
+
+    public static final int DEFAULT_MAX_SOURCES = 1024;
+
+    public static final class Hub {
+        private final String station;
+        private final int degree;
+        private final int trains;
+        private final double betweenness;
+
+        Hub(String station, int degree, int trains, double betweenness) {
+            this.station = station;
+            this.degree = degree;
+            this.trains = trains;
+            this.betweenness = betweenness;
+        }
+
+        public String getStation() {
+            return station;
+        }
+
+        public int getDegree() {
+            return degree;
+        }
+
+        public int getTrains() {
+            return trains;
+        }
+
+        public double getBetweenness() {
+            return betweenness;
+        }
+
+        @Override
+        public String toString() {
+            if (Double.isNaN(betweenness)) {
+                return String.format("%s (%d neighbours, %d trains)", station, degree, trains);
+            }
+            return String.format("%s (%d neighbours, %d trains, betweenness %.3f)", station, degree, trains, betweenness);
+        }
+    }
+
+    private static final class Accumulator {
+        private final double[] centrality;
+        private final int[] distances;
+        private final double[] paths;
+        private final double[] dependencies;
+        private final int[] order;
+
+        Accumulator(int stationCount) {
+            this.centrality = new double[stationCount];
+            this.distances = new int[stationCount];
+            this.paths = new double[stationCount];
+            this.dependencies = new double[stationCount];
+            this.order = new int[stationCount];
+        }
+
+        void addSource(CsrGraph graph, int source) {
+            Arrays.fill(distances, -1);
+            Arrays.fill(paths, 0);
+            Arrays.fill(dependencies, 0);
+            distances[source] = 0;
+            paths[source] = 1;
+            order[0] = source;
+            int head = 0;
+            int tail = 1;
+            while (head < tail) {
+                int station = order[head++];
+                for (int i = graph.getNeighborStart(station); i < graph.getNeighborEnd(station); i++) {
+                    int neighbor = graph.getNeighborAt(i);
+                    if (distances[neighbor] == -1) {
+                        distances[neighbor] = distances[station] + 1;
+                        order[tail++] = neighbor;
+                    }
+                    if (distances[neighbor] == distances[station] + 1) {
+                        paths[neighbor] += paths[station];
+                    }
+                }
+            }
+
+            for (int k = tail - 1; k > 0; k--) {
+                int station = order[k];
+                for (int i = graph.getNeighborStart(station); i < graph.getNeighborEnd(station); i++) {
+                    int previous = graph.getNeighborAt(i);
+                    if (distances[previous] == distances[station] - 1) {
+                        dependencies[previous] += paths[previous] / paths[station] * (1 + dependencies[station]);
+                    }
+                }
+                centrality[station] += dependencies[station];
+            }
+        }
+
+        void merge(Accumulator other) {
+            for (int i = 0; i < centrality.length; i++) {
+                centrality[i] += other.centrality[i];
+            }
+        }
+    }
+
+    private StationHubs() {
+    }
+
+    public static int[] trainCounts(RoutingNetwork network) {
+        return IntStream.range(0, network.getStationCount()).parallel().map(station -> {
+            int count = 0;
+            int last = -1;
+            for (int stop = network.getStopStart(station); stop < network.getStopEnd(station); stop++) {
+                if (network.getStopTrain(stop) != last) {
+                    last = network.getStopTrain(stop);
+                    count++;
+                }
+            }
+            return count;
+        }).toArray();
+    }
+
+    public static double[] betweenness(CsrGraph graph, int maxSources) {
+        int stationCount = graph.getNodeCount();
+        if (stationCount == 0) {
+            return new double[0];
+        }
+        int sourceCount = Math.min(stationCount, Math.max(1, maxSources));
+        int step = stationCount / sourceCount;
+        Accumulator total = IntStream.range(0, sourceCount)
+                .parallel()
+                .map(i -> i * step)
+                .collect(() -> new Accumulator(stationCount), (a, source) -> a.addSource(graph, source), Accumulator::merge);
+
+        double scale = (double) stationCount / sourceCount / 2;
+        if (stationCount > 2) {
+            scale /= (double) (stationCount - 1) * (stationCount - 2) / 2;
+        }
+        double[] result = total.centrality;
+        for (int i = 0; i < stationCount; i++) {
+            result[i] *= scale;
+        }
+        return result;
+    }
+
+    public static List<Hub> byDegree(RoutingNetwork network, int limit) {
+        int[] trains = trainCounts(network);
+        double[] betweenness = new double[network.getStationCount()];
+        Arrays.fill(betweenness, Double.NaN);
+        return rank(network, trains, betweenness, limit,
+                Comparator.comparingInt(Hub::getDegree).thenComparingInt(Hub::getTrains));
+    }
+
+    public static List<Hub> byBetweenness(RoutingNetwork network, int limit, int maxSources) {
+        int[] trains = trainCounts(network);
+        double[] betweenness = betweenness(network.getGraph(), maxSources);
+        return rank(network, trains, betweenness, limit,
+                Comparator.comparingDouble(Hub::getBetweenness).thenComparingInt(Hub::getDegree));
+    }
+
+    private static List<Hub> rank(RoutingNetwork network, int[] trains, double[] betweenness, int limit,
+            Comparator<Hub> order) {
+        CsrGraph graph = network.getGraph();
+        return IntStream.range(0, network.getStationCount())
+                .parallel()
+                .filter(station -> graph.getDegree(station) > 0)
+                .mapToObj(station -> new Hub(network.getStationName(station), graph.getDegree(station),
+                        trains[station], betweenness[station]))
+                .sorted(order.reversed().thenComparing(Hub::getStation, String.CASE_INSENSITIVE_ORDER))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,107 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class StationIndex {
+
+    public static final class Stop {
+        private final Train train;
+        private final int position;
+
+        Stop(Train train, int position) {
+            this.train = train;
+            this.position = position;
+        }
+
+        public Train getTrain() {
+            return train;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+    }
+
+    private final Map<String, List<Stop>> stopsByStation;
+
+    public StationIndex() {
+        this.stopsByStation = new HashMap<>();
+    }
+
+    public static String normalize(String station) {
+        return station.toLowerCase(Locale.ROOT);
+    }
+
+    public void add(Train train) {
+        List<String> stations = train.getStations();
+        for (int i = 0; i < stations.size(); i++) {
+            stopsByStation.computeIfAbsent(normalize(stations.get(i)), k -> new ArrayList<>())
+                    .add(new Stop(train, i));
+        }
+    }
+
+    public void remove(Train train) {
+        for (String station : train.getStations()) {
+            String key = normalize(station);
+            List<Stop> stops = stopsByStation.get(key);
+            if (stops == null)
+                continue;
+
+            stops.removeIf(stop -> stop.train == train);
+            if (stops.isEmpty()) {
+                stopsByStation.remove(key);
+            }
+        }
+    }
+
+    public void clear() {
+        stopsByStation.clear();
+    }
+
+    public List<Stop> getStops(String station) {
+        List<Stop> stops = stopsByStation.get(normalize(station));
+        return stops == null ? Collections.emptyList() : Collections.unmodifiableList(stops);
+    }
+
+    public List<Train> getTrains(String station) {
+        List<Stop> stops = getStops(station);
+        List<Train> result = new ArrayList<>(stops.size());
+        Train last = null;
+        for (Stop stop : stops) {
+            if (stop.train != last) {
+                result.add(stop.train);
+                last = stop.train;
+            }
+        }
+        return result;
+    }
+
+    public Train findDirect(String start, String end) {
+        List<Stop> startStops = getStops(start);
+        List<Stop> endStops = getStops(end);
+        if (startStops.isEmpty() || endStops.isEmpty()) {
+            return null;
+        }
+
+        Map<Train, Integer> lastEndPosition = new IdentityHashMap<>();
+        for (Stop stop : endStops) {
+            lastEndPosition.merge(stop.train, stop.position, Math::max);
+        }
+
+        for (Stop stop : startStops) {
+            Integer endPosition = lastEndPosition.get(stop.train);
+            if (endPosition != null && stop.position < endPosition) {
+                return stop.train;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return stopsByStation.size();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class StationInterner {
+
+    private final Map<String, Integer> ids;
+    private final List<String> names;
+
+    public StationInterner() {
+        this.ids = new HashMap<>();
+        this.names = new ArrayList<>();
+    }
+
+    public int intern(String station) {
+        String key = StationIndex.normalize(station);
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        int newId = names.size();
+        ids.put(key, newId);
+        names.add(station);
+        return newId;
+    }
+
+    public int find(String station) {
+        Integer id = ids.get(StationIndex.normalize(station));
+        return id == null ? -1 : id;
+    }
+
+    public String canonical(String station) {
+        return names.get(intern(station));
+    }
+
+    public String getName(int id) {
+        return names.get(id);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public void clear() {
+        ids.clear();
+        names.clear();
+    }
+}
\ No newline at end of file
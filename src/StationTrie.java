@@ -0,0 +1,245 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public class StationTrie {
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private String station;
+
+        Node child(char key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i < 0 ? null : children[i];
+        }
+
+        Node addChild(char key) {
+            int i = Arrays.binarySearch(keys, key);
+            if (i >= 0) {
+                return children[i];
+            }
+            i = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            newKeys[i] = key;
+            newChildren[i] = new Node();
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[i];
+        }
+    }
+
+    private static final class Match {
+        private final String station;
+        private final int distance;
+
+        Match(String station, int distance) {
+            this.station = station;
+            this.distance = distance;
+        }
+    }
+
+    private static final Comparator<Match> BEST_FIRST = Comparator.<Match>comparingInt(m -> m.distance)
+            .thenComparing(m -> m.station, String.CASE_INSENSITIVE_ORDER);
+
+    private static final class BestMatches {
+        private final PriorityQueue<Match> worstFirst = new PriorityQueue<>(BEST_FIRST.reversed());
+        private final int limit;
+
+        BestMatches(int limit) {
+            this.limit = limit;
+        }
+
+        boolean isFull() {
+            return worstFirst.size() >= limit;
+        }
+
+        boolean accepts(int distance) {
+            return !isFull() || distance <= worstFirst.peek().distance;
+        }
+
+        void offer(Match match) {
+            if (limit <= 0) {
+                return;
+            }
+            if (!isFull()) {
+                worstFirst.add(match);
+            } else if (BEST_FIRST.compare(match, worstFirst.peek()) < 0) {
+                worstFirst.poll();
+                worstFirst.add(match);
+            }
+        }
+
+        List<Match> sorted() {
+            List<Match> result = new ArrayList<>(worstFirst);
+            result.sort(BEST_FIRST);
+            return result;
+        }
+    }
+
+    private final Node root;
+    private int size;
+
+    private StationTrie() {
+        this.root = new Node();
+    }
+
+    public static StationTrie build(Collection<String> stations) {
+        StationTrie trie = new StationTrie();
+        for (String station : stations) {
+            trie.add(station);
+        }
+        return trie;
+    }
+
+    private void add(String station) {
+        String key = StationIndex.normalize(station);
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.addChild(key.charAt(i));
+        }
+        if (node.station == null) {
+            size++;
+        }
+        node.station = station;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String find(String station) {
+        Node node = walk(StationIndex.normalize(station.trim()));
+        return node == null ? null : node.station;
+    }
+
+    public List<String> findByPrefix(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        Node node = walk(StationIndex.normalize(prefix.trim()));
+        if (node != null) {
+            collect(node, result, limit);
+        }
+        return result;
+    }
+
+    public List<String> findSimilar(String query, int maxDistance, int limit) {
+        return search(StationIndex.normalize(query.trim()), maxDistance, limit, false);
+    }
+
+    public List<String> suggest(String input, int limit) {
+        String query = StationIndex.normalize(input.trim());
+        List<String> result = findByPrefix(query, limit);
+        if (result.size() < limit && !query.isEmpty()) {
+            for (String station : search(query, maxDistance(query), limit, true)) {
+                if (result.size() == limit) {
+                    break;
+                }
+                if (!result.contains(station)) {
+                    result.add(station);
+                }
+            }
+        }
+        return result;
+    }
+
+    public String canonicalize(String input) {
+        String exact = find(input);
+        if (exact != null) {
+            return exact;
+        }
+        String query = StationIndex.normalize(input.trim());
+        List<Match> matches = matches(query, maxDistance(query), false, 2);
+        if (matches.isEmpty() || (matches.size() > 1 && matches.get(1).distance == matches.get(0).distance)) {
+            return null;
+        }
+        return matches.get(0).station;
+    }
+
+    private static int maxDistance(String query) {
+        return query.length() < 4 ? 0 : query.length() < 8 ? 1 : 2;
+    }
+
+    private Node walk(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    private static boolean collect(Node node, List<String> result, int limit) {
+        if (node.station != null) {
+            if (result.size() == limit) {
+                return false;
+            }
+            result.add(node.station);
+        }
+        for (Node child : node.children) {
+            if (!collect(child, result, limit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<String> search(String query, int maxDistance, int limit, boolean prefix) {
+        List<String> result = new ArrayList<>();
+        for (Match match : matches(query, maxDistance, prefix, limit)) {
+            result.add(match.station);
+        }
+        return result;
+    }
+
+    private List<Match> matches(String query, int maxDistance, boolean prefix, int limit) {
+        BestMatches matches = new BestMatches(limit);
+        int[] row = new int[query.length() + 1];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = i;
+        }
+        for (int c = 0; c < root.keys.length; c++) {
+            search(root.children[c], root.keys[c], query, row, maxDistance, prefix, matches);
+        }
+        return matches.sorted();
+    }
+
+    private static void search(Node node, char key, String query, int[] previous, int maxDistance, boolean prefix,
+            BestMatches matches) {
+        int[] row = new int[previous.length];
+        row[0] = previous[0] + 1;
+        int rowMin = row[0];
+        for (int i = 1; i < row.length; i++) {
+            int substitute = previous[i - 1] + (query.charAt(i - 1) == key ? 0 : 1);
+            row[i] = Math.min(substitute, Math.min(row[i - 1] + 1, previous[i] + 1));
+            rowMin = Math.min(rowMin, row[i]);
+        }
+
+        int distance = row[row.length - 1];
+        if (prefix && distance <= maxDistance) {
+            if (matches.accepts(distance)) {
+                List<String> stations = new ArrayList<>();
+                collect(node, stations, matches.limit);
+                for (String station : stations) {
+                    matches.offer(new Match(station, distance));
+                }
+            }
+            return;
+        }
+        if (node.station != null && distance <= maxDistance) {
+            matches.offer(new Match(node.station, distance));
+        }
+        if (rowMin > maxDistance || !matches.accepts(rowMin)) {
+            return;
+        }
+        for (int c = 0; c < node.keys.length; c++) {
+            search(node.children[c], node.keys[c], query, row, maxDistance, prefix, matches);
+        }
+    }
+}
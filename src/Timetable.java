@@ -0,0 +1,134 @@
+import java.util.List;
+import java.util.Locale;
+
+public class Timetable {
+
+    public static final int DAILY = 0x7F;
+    private static final String DAY_LETTERS = "MTWTFSS";
+    private static final String[] DAY_NAMES = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+
+    private final int[] arrivals;
+    private final int[] departures;
+    private final int serviceDays;
+
+    public Timetable(int[] arrivals, int[] departures, int serviceDays) {
+        if (arrivals.length != departures.length) {
+            throw new IllegalArgumentException("arrival and departure counts differ");
+        }
+        if ((serviceDays & DAILY) == 0 || (serviceDays & ~DAILY) != 0) {
+            throw new IllegalArgumentException("train must run on at least one day of the week");
+        }
+        for (int i = 0; i < arrivals.length; i++) {
+            if (arrivals[i] < 0 || departures[i] < arrivals[i]) {
+                throw new IllegalArgumentException("stop " + (i + 1) + " departs before it arrives");
+            }
+            if (i > 0 && arrivals[i] < departures[i - 1]) {
+                throw new IllegalArgumentException("stop " + (i + 1) + " arrives before the previous stop departs");
+            }
+        }
+        this.arrivals = arrivals.clone();
+        this.departures = departures.clone();
+        this.serviceDays = serviceDays;
+    }
+
+    public static Timetable parse(List<String> arrivals, List<String> departures, String days) {
+        int[] arrivalTimes = new int[arrivals.size()];
+        int[] departureTimes = new int[departures.size()];
+        for (int i = 0; i < arrivalTimes.length; i++) {
+            String arrival = arrivals.get(i);
+            String departure = departures.get(i);
+            if (arrival.isEmpty() && departure.isEmpty()) {
+                throw new IllegalArgumentException("stop " + (i + 1) + " has no time");
+            }
+            arrivalTimes[i] = parseTime(arrival.isEmpty() ? departure : arrival);
+            departureTimes[i] = parseTime(departure.isEmpty() ? arrival : departure);
+        }
+        return new Timetable(arrivalTimes, departureTimes, days == null ? DAILY : parseDays(days));
+    }
+
+    public int getStopCount() {
+        return arrivals.length;
+    }
+
+    public int getArrival(int stop) {
+        return arrivals[stop];
+    }
+
+    public int getDeparture(int stop) {
+        return departures[stop];
+    }
+
+    public int getServiceDays() {
+        return serviceDays;
+    }
+
+    public boolean runsOn(int day) {
+        return (serviceDays & (1 << day)) != 0;
+    }
+
+    public String formatStop(int stop) {
+        String arrival = formatTime(arrivals[stop]);
+        return arrivals[stop] == departures[stop] ? arrival : arrival + "|" + formatTime(departures[stop]);
+    }
+
+    public static int parseTime(String text) {
+        String time = text.trim();
+        int colon = time.indexOf(':');
+        if (colon < 1 || colon != time.length() - 3) {
+            throw new IllegalArgumentException("expected HH:MM but found '" + text + "'");
+        }
+        try {
+            int hours = Integer.parseInt(time.substring(0, colon));
+            int minutes = Integer.parseInt(time.substring(colon + 1));
+            if (hours < 0 || hours > 47 || minutes < 0 || minutes > 59) {
+                throw new IllegalArgumentException("time out of range: '" + text + "'");
+            }
+            return hours * 60 + minutes;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("expected HH:MM but found '" + text + "'");
+        }
+    }
+
+    public static String formatTime(int minutes) {
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+
+    public static int parseDays(String text) {
+        String days = text.trim();
+        if (days.length() != DAY_LETTERS.length()) {
+            throw new IllegalArgumentException("expected service days like 'MTWTF--' but found '" + text + "'");
+        }
+        int mask = 0;
+        for (int day = 0; day < days.length(); day++) {
+            char c = days.charAt(day);
+            if (Character.toUpperCase(c) == DAY_LETTERS.charAt(day)) {
+                mask |= 1 << day;
+            } else if (c != '-') {
+                throw new IllegalArgumentException("expected service days like 'MTWTF--' but found '" + text + "'");
+            }
+        }
+        return mask;
+    }
+
+    public static String formatDays(int mask) {
+        StringBuilder days = new StringBuilder(DAY_LETTERS.length());
+        for (int day = 0; day < DAY_LETTERS.length(); day++) {
+            days.append((mask & (1 << day)) != 0 ? DAY_LETTERS.charAt(day) : '-');
+        }
+        return days.toString();
+    }
+
+    public static int parseDay(String text) {
+        String day = text.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < DAY_NAMES.length; i++) {
+            if (day.startsWith(DAY_NAMES[i])) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("unknown day '" + text + "'");
+    }
+
+    public static String dayName(int day) {
+        return DAY_NAMES[day];
+    }
+}
@@ -1,14 +1,90 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.StringJoiner;
 
 public class Train {
+    private static final String[] NO_STATIONS = new String[0];
+
     private final String name;
-    private final List<String> stations;
+    private final int nameHash;
+    private final String[] stations;
+    private final Timetable timetable;
+    private final List<String> stationView = new StationList();
+
+    private final class StationList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            return stations[index];
+        }
+
+        @Override
+        public int size() {
+            return stations.length;
+        }
+    }
 
     public Train(String name, List<String> stations) {
+        this(name, stations, null);
+    }
+
+    public Train(String name, List<String> stations, Timetable timetable) {
+        if (timetable != null && timetable.getStopCount() != stations.size()) {
+            throw new IllegalArgumentException("timetable has " + timetable.getStopCount() + " stops but the route has "
+                    + stations.size());
+        }
         this.name = name;
-        this.stations = stations;
+        this.nameHash = hashIgnoreCase(name);
+        this.stations = stations == null || stations.isEmpty() ? NO_STATIONS : new String[stations.size()];
+        for (int i = 0; i < this.stations.length; i++) {
+            this.stations[i] = StationArena.intern(stations.get(i));
+        }
+        this.timetable = timetable;
+    }
+
+    private static int hashIgnoreCase(String value) {
+        int hash = 0;
+        for (int i = 0; i < value.length(); i++) {
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+        }
+        return hash;
+    }
+
+    public static Train parse(String nameText, List<String> stopTokens) {
+        String name = nameText.trim();
+        String days = null;
+        int bar = name.lastIndexOf('|');
+        if (bar != -1) {
+            days = name.substring(bar + 1);
+            name = name.substring(0, bar).trim();
+        }
+
+        List<String> stations = new ArrayList<>(stopTokens.size());
+        List<String> arrivals = new ArrayList<>(stopTokens.size());
+        List<String> departures = new ArrayList<>(stopTokens.size());
+        for (String token : stopTokens) {
+            String[] parts = token.split("\\|", -1);
+            if (parts.length > 3) {
+                throw new IllegalArgumentException("expected 'station|arrival|departure' but found '" + token + "'");
+            }
+            stations.add(parts[0].trim());
+            if (parts.length > 1) {
+                arrivals.add(parts[1].trim());
+                departures.add(parts.length == 3 ? parts[2].trim() : "");
+            }
+        }
+
+        if (arrivals.isEmpty()) {
+            if (days != null) {
+                throw new IllegalArgumentException("service days given for a train without times");
+            }
+            return new Train(name, stations);
+        }
+        if (arrivals.size() != stations.size()) {
+            throw new IllegalArgumentException("either every stop or no stop must have a time");
+        }
+        return new Train(name, stations, Timetable.parse(arrivals, departures, days));
     }
 
     public String getName() {
@@ -16,25 +92,63 @@ public class Train {
     }
 
     public List<String> getStations() {
-        return stations;
+        return stationView;
     }
 
     public String getStartStation() {
-        if (stations == null || stations.isEmpty()) {
+        if (stations.length == 0) {
             return "N/A";
         }
-        return stations.get(0);
+        return stations[0];
     }
 
     public String getEndStation() {
-        if (stations == null || stations.isEmpty()) {
+        if (stations.length == 0) {
             return "N/A";
         }
-        return stations.get(stations.size() - 1);
+        return stations[stations.length - 1];
     }
 
     public int getNumberOfStops() {
-        return stations.size();
+        return stations.length;
+    }
+
+    public long getHeapBytes() {
+        long bytes = StationArena.objectBytes(4 + 4 + 4 + 4 + 4) + StationArena.stringBytes(name)
+                + StationArena.arrayBytes(stations.length, 4) + StationArena.objectBytes(4 + 4);
+        if (timetable != null) {
+            bytes += StationArena.objectBytes(4 + 4 + 4) + 2 * StationArena.arrayBytes(stations.length, 4);
+        }
+        return bytes;
+    }
+
+    public Timetable getTimetable() {
+        return timetable;
+    }
+
+    public boolean isTimetabled() {
+        return timetable != null;
+    }
+
+    public List<String> formatStops() {
+        if (timetable == null) {
+            return getStations();
+        }
+        List<String> stops = new ArrayList<>(stations.length);
+        for (int i = 0; i < stations.length; i++) {
+            stops.add(stations[i] + "|" + timetable.formatStop(i));
+        }
+        return stops;
+    }
+
+    public String formatName() {
+        return timetable == null || timetable.getServiceDays() == Timetable.DAILY
+                ? name
+                : name + "|" + Timetable.formatDays(timetable.getServiceDays());
+    }
+
+    public String toText() {
+        return formatName() + ":" + String.join(",", formatStops());
     }
 
     @Override
@@ -43,6 +157,11 @@ public class Train {
         for (String station : stations) {
             sj.add(station);
         }
+        if (timetable != null) {
+            return String.format("%s (%d stops, %s-%s): %s", name, getNumberOfStops(),
+                    Timetable.formatTime(timetable.getDeparture(0)),
+                    Timetable.formatTime(timetable.getArrival(stations.length - 1)), sj);
+        }
         return String.format("%s (%d stops): %s", name, getNumberOfStops(), sj);
     }
 
@@ -53,11 +172,11 @@ public class Train {
         if (o == null || getClass() != o.getClass())
             return false;
         Train train = (Train) o;
-        return name.equalsIgnoreCase(train.name);
+        return nameHash == train.nameHash && name.equalsIgnoreCase(train.name);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name.toLowerCase());
+        return nameHash;
     }
 }
\ No newline at end of file
@@ -0,0 +1,564 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class TrainCsvImporter {
+
+    private static final long CHUNK_BYTES = 8L << 20;
+    private static final int MAX_REPORTED_PROBLEMS = 100;
+    private static final int NO_TIME = -1;
+    private static final String RESERVED_CHARACTERS = ":,|";
+
+    private static final String[] TRIP_COLUMNS = {"trip_id", "train", "train_name"};
+    private static final String[] STOP_COLUMNS = {"stop_name", "station", "stop_id"};
+    private static final String[] SEQUENCE_COLUMNS = {"stop_sequence", "sequence"};
+    private static final String[] ARRIVAL_COLUMNS = {"arrival_time", "arrival"};
+    private static final String[] DEPARTURE_COLUMNS = {"departure_time", "departure"};
+    private static final String[] DAYS_COLUMNS = {"service_days", "days"};
+
+    public static final class Report {
+        private final List<String> problems = new ArrayList<>();
+        private long bytes;
+        private long rows;
+        private long trips;
+        private long trains;
+        private long stops;
+        private long rejectedRows;
+        private long rejectedTrips;
+        private long duplicateTrains;
+        private long parseNanos;
+        private long buildNanos;
+
+        private void problem(String message) {
+            if (problems.size() < MAX_REPORTED_PROBLEMS) {
+                problems.add(message);
+            }
+        }
+
+        void duplicate(Train train) {
+            duplicateTrains++;
+            trains--;
+            stops -= train.getNumberOfStops();
+            problem("duplicate train '" + train.getName() + "' skipped");
+        }
+
+        void built(long nanos) {
+            buildNanos = nanos;
+        }
+
+        public List<String> getProblems() {
+            return Collections.unmodifiableList(problems);
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getTrips() {
+            return trips;
+        }
+
+        public long getTrains() {
+            return trains;
+        }
+
+        public long getStops() {
+            return stops;
+        }
+
+        public long getRejectedRows() {
+            return rejectedRows;
+        }
+
+        public long getRejectedTrips() {
+            return rejectedTrips;
+        }
+
+        public long getDuplicateTrains() {
+            return duplicateTrains;
+        }
+
+        public long getParseNanos() {
+            return parseNanos;
+        }
+
+        public long getBuildNanos() {
+            return buildNanos;
+        }
+
+        public double getRowsPerSecond() {
+            long elapsed = parseNanos + buildNanos;
+            return elapsed == 0 ? 0 : rows / (elapsed / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d trains, %d stops from %d rows in %d trips (rejected %d rows, %d trips, %d duplicates);"
+                            + " parsed in %.1f ms, built in %.1f ms, %.0f rows/s",
+                    trains, stops, rows, trips, rejectedRows, rejectedTrips, duplicateTrains,
+                    parseNanos / 1e6, buildNanos / 1e6, getRowsPerSecond());
+        }
+    }
+
+    public static final class Batch {
+        private final List<Train> trains;
+        private final Report report;
+
+        private Batch(List<Train> trains, Report report) {
+            this.trains = trains;
+            this.report = report;
+        }
+
+        public List<Train> getTrains() {
+            return trains;
+        }
+
+        public Report getReport() {
+            return report;
+        }
+    }
+
+    private static final class Columns {
+        private final int trip;
+        private final int stop;
+        private final int sequence;
+        private final int arrival;
+        private final int departure;
+        private final int days;
+        private final int count;
+
+        Columns(List<String> header) throws IOException {
+            List<String> names = new ArrayList<>(header.size());
+            for (String name : header) {
+                names.add(name.trim().toLowerCase(Locale.ROOT));
+            }
+            this.trip = find(names, TRIP_COLUMNS, true);
+            this.stop = find(names, STOP_COLUMNS, true);
+            this.sequence = find(names, SEQUENCE_COLUMNS, false);
+            this.arrival = find(names, ARRIVAL_COLUMNS, false);
+            this.departure = find(names, DEPARTURE_COLUMNS, false);
+            this.days = find(names, DAYS_COLUMNS, false);
+            this.count = names.size();
+        }
+
+        private static int find(List<String> names, String[] candidates, boolean required) throws IOException {
+            for (String candidate : candidates) {
+                int index = names.indexOf(candidate);
+                if (index != -1) {
+                    return index;
+                }
+            }
+            if (required) {
+                throw new IOException("CSV header has no '" + candidates[0] + "' column");
+            }
+            return -1;
+        }
+    }
+
+    private static final class Trip {
+        private final String name;
+        private int size;
+        private int[] sequences = new int[8];
+        private String[] stations = new String[8];
+        private int[] arrivals = new int[8];
+        private int[] departures = new int[8];
+        private int days = -1;
+        private String problem;
+
+        Trip(String name) {
+            this.name = name;
+        }
+
+        void add(int sequence, String station, int arrival, int departure) {
+            if (size == stations.length) {
+                int capacity = size * 2;
+                sequences = Arrays.copyOf(sequences, capacity);
+                stations = Arrays.copyOf(stations, capacity);
+                arrivals = Arrays.copyOf(arrivals, capacity);
+                departures = Arrays.copyOf(departures, capacity);
+            }
+            sequences[size] = sequence;
+            stations[size] = station;
+            arrivals[size] = arrival;
+            departures[size] = departure;
+            size++;
+        }
+
+        void setDays(int mask) {
+            if (days != -1 && days != mask) {
+                reject("service days differ between rows");
+            }
+            days = mask;
+        }
+
+        void reject(String message) {
+            if (problem == null) {
+                problem = message;
+            }
+        }
+
+        void append(Trip other, int sequenceOffset) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.sequences[i] + sequenceOffset, other.stations[i], other.arrivals[i], other.departures[i]);
+            }
+            if (other.days != -1) {
+                setDays(other.days);
+            }
+            if (other.problem != null) {
+                reject(other.problem);
+            }
+        }
+
+        Train toTrain() {
+            if (size < 2) {
+                throw new IllegalArgumentException("a train must have at least two stations");
+            }
+            checkText("train name", name);
+            for (int i = 0; i < size; i++) {
+                checkText("station", stations[i]);
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt(i -> sequences[i]));
+
+            List<String> route = new ArrayList<>(size);
+            int[] arrivalTimes = new int[size];
+            int[] departureTimes = new int[size];
+            int timed = 0;
+            for (int i = 0; i < size; i++) {
+                int row = order[i];
+                if (i > 0 && sequences[row] == sequences[order[i - 1]]) {
+                    throw new IllegalArgumentException("stop sequence " + sequences[row] + " appears twice");
+                }
+                route.add(stations[row]);
+                arrivalTimes[i] = arrivals[row];
+                departureTimes[i] = departures[row];
+                if (arrivals[row] != NO_TIME) {
+                    timed++;
+                }
+            }
+
+            if (timed == 0) {
+                if (days != -1) {
+                    throw new IllegalArgumentException("service days given for a train without times");
+                }
+                return new Train(name, route);
+            }
+            if (timed != size) {
+                throw new IllegalArgumentException("either every stop or no stop must have a time");
+            }
+            return new Train(name, route, new Timetable(arrivalTimes, departureTimes, days == -1 ? Timetable.DAILY : days));
+        }
+    }
+
+    private static final class Chunk {
+        private final Columns columns;
+        private final boolean sequenced;
+        private final Map<String, String> stations;
+        private final Map<String, Trip> trips = new LinkedHashMap<>();
+        private final List<String> fields = new ArrayList<>();
+        private final List<Long> problemLines = new ArrayList<>();
+        private final List<String> problems = new ArrayList<>();
+        private final StringBuilder field = new StringBuilder();
+        private byte[] scratch = new byte[256];
+        private long lines;
+        private long rows;
+        private long rejectedRows;
+
+        Chunk(Columns columns, Map<String, String> stations) {
+            this.columns = columns;
+            this.sequenced = columns.sequence != -1;
+            this.stations = stations;
+        }
+
+        Chunk parse(FileChannel channel, long start, long end) {
+            try {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                int length = (int) (end - start);
+                int lineStart = 0;
+                while (lineStart < length) {
+                    int lineEnd = lineStart;
+                    while (lineEnd < length && buffer.get(lineEnd) != '\n') {
+                        lineEnd++;
+                    }
+                    lines++;
+                    int contentEnd = lineEnd;
+                    if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+                        contentEnd--;
+                    }
+                    if (contentEnd > lineStart) {
+                        parseRow(decode(buffer, lineStart, contentEnd));
+                    }
+                    lineStart = lineEnd + 1;
+                }
+            } catch (IOException e) {
+                problem("cannot read bytes " + start + "-" + end + ": " + e.getMessage());
+            }
+            return this;
+        }
+
+        private String decode(ByteBuffer buffer, int start, int end) {
+            int length = end - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(start, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void parseRow(String line) {
+            rows++;
+            if (!split(line, fields, field)) {
+                reject(null, "unterminated quote");
+                return;
+            }
+            if (fields.size() != columns.count) {
+                reject(null, "expected " + columns.count + " fields but found " + fields.size());
+                return;
+            }
+
+            String tripName = fields.get(columns.trip).trim();
+            if (tripName.isEmpty()) {
+                reject(null, "empty trip id");
+                return;
+            }
+            Trip trip = trips.computeIfAbsent(tripName, name -> new Trip(name));
+
+            String station = fields.get(columns.stop).trim();
+            if (station.isEmpty()) {
+                reject(trip, "empty station");
+                return;
+            }
+            try {
+                int sequence = sequenced ? Integer.parseInt(fields.get(columns.sequence).trim()) : trip.size;
+                int arrival = parseTime(columns.arrival);
+                int departure = parseTime(columns.departure);
+                if (arrival == NO_TIME) {
+                    arrival = departure;
+                } else if (departure == NO_TIME) {
+                    departure = arrival;
+                }
+                if (columns.days != -1 && !fields.get(columns.days).trim().isEmpty()) {
+                    trip.setDays(Timetable.parseDays(fields.get(columns.days)));
+                }
+                String canonical = stations.putIfAbsent(station, station);
+                trip.add(sequence, canonical == null ? station : canonical, arrival, departure);
+            } catch (NumberFormatException e) {
+                reject(trip, "stop sequence is not a number: '" + fields.get(columns.sequence).trim() + "'");
+            } catch (IllegalArgumentException e) {
+                reject(trip, e.getMessage());
+            }
+        }
+
+        private int parseTime(int column) {
+            if (column == -1) {
+                return NO_TIME;
+            }
+            String time = fields.get(column).trim();
+            if (time.isEmpty()) {
+                return NO_TIME;
+            }
+            if (time.length() > 3 && time.charAt(time.length() - 3) == ':' && time.indexOf(':') < time.length() - 3) {
+                time = time.substring(0, time.length() - 3);
+            }
+            return Timetable.parseTime(time);
+        }
+
+        private void reject(Trip trip, String message) {
+            rejectedRows++;
+            if (trip != null) {
+                trip.reject("a row was rejected");
+            }
+            problem(message);
+        }
+
+        private void problem(String message) {
+            if (problems.size() < MAX_REPORTED_PROBLEMS) {
+                problemLines.add(lines);
+                problems.add(message);
+            }
+        }
+    }
+
+    private TrainCsvImporter() {
+    }
+
+    private static void checkText(String kind, String value) {
+        for (int i = 0; i < RESERVED_CHARACTERS.length(); i++) {
+            char reserved = RESERVED_CHARACTERS.charAt(i);
+            if (value.indexOf(reserved) != -1) {
+                throw new IllegalArgumentException(kind + " '" + value + "' contains '" + reserved
+                        + "', which trains.txt cannot store");
+            }
+        }
+    }
+
+    public static Batch read(Path path) throws IOException {
+        Report report = new Report();
+        long started = System.nanoTime();
+
+        List<Chunk> chunks;
+        long headerLines;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long headerEnd = nextLineStart(channel, 0, size);
+            String header = readString(channel, 0, headerEnd).replace("\uFEFF", "").trim();
+            List<String> headerFields = new ArrayList<>();
+            if (header.isEmpty() || !split(header, headerFields, new StringBuilder())) {
+                throw new IOException("CSV file " + path + " has no header row");
+            }
+            Columns columns = new Columns(headerFields);
+            headerLines = 1;
+
+            int chunkCount = (int) Math.max(1, (size - headerEnd + CHUNK_BYTES - 1) / CHUNK_BYTES);
+            long[] bounds = new long[chunkCount + 1];
+            bounds[0] = headerEnd;
+            for (int c = 1; c < chunkCount; c++) {
+                long target = headerEnd + c * CHUNK_BYTES;
+                bounds[c] = Math.max(bounds[c - 1], nextLineStart(channel, target - 1, size));
+            }
+            bounds[chunkCount] = size;
+
+            Map<String, String> stations = new ConcurrentHashMap<>();
+            chunks = IntStream.range(0, chunkCount)
+                    .parallel()
+                    .mapToObj(c -> new Chunk(columns, stations).parse(channel, bounds[c], bounds[c + 1]))
+                    .collect(Collectors.toList());
+            report.bytes = size;
+        }
+
+        Map<String, Trip> trips = new LinkedHashMap<>();
+        long lineOffset = headerLines;
+        for (Chunk chunk : chunks) {
+            report.rows += chunk.rows;
+            report.rejectedRows += chunk.rejectedRows;
+            for (int i = 0; i < chunk.problems.size(); i++) {
+                report.problem("line " + (lineOffset + chunk.problemLines.get(i)) + ": " + chunk.problems.get(i));
+            }
+            for (Trip trip : chunk.trips.values()) {
+                Trip existing = trips.get(trip.name);
+                if (existing == null) {
+                    trips.put(trip.name, trip);
+                } else {
+                    existing.append(trip, chunk.sequenced ? 0 : existing.size);
+                }
+            }
+            lineOffset += chunk.lines;
+        }
+        report.trips = trips.size();
+
+        List<Object> results = trips.values().parallelStream()
+                .map(trip -> {
+                    if (trip.problem != null) {
+                        return "trip '" + trip.name + "': " + trip.problem;
+                    }
+                    try {
+                        return trip.toTrain();
+                    } catch (IllegalArgumentException e) {
+                        return "trip '" + trip.name + "': " + e.getMessage();
+                    }
+                })
+                .collect(Collectors.toList());
+
+        List<Train> accepted = new ArrayList<>(results.size());
+        Set<String> names = new HashSet<>();
+        for (Object result : results) {
+            if (result instanceof String) {
+                report.rejectedTrips++;
+                report.problem((String) result);
+                continue;
+            }
+            Train train = (Train) result;
+            report.trains++;
+            report.stops += train.getNumberOfStops();
+            if (!names.add(StationIndex.normalize(train.getName()))) {
+                report.duplicate(train);
+                continue;
+            }
+            accepted.add(train);
+        }
+
+        report.parseNanos = System.nanoTime() - started;
+        return new Batch(accepted, report);
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static String readString(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) <= 0) {
+                break;
+            }
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    private static boolean split(String line, List<String> fields, StringBuilder field) {
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return !quoted;
+    }
+}
@@ -0,0 +1,313 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+public class TrainFileLoader {
+
+    private static final long MAP_WINDOW = 1L << 30;
+    private static final int MAX_REPORTED_PROBLEMS = 100;
+
+    public static final class Report {
+        private final List<String> problems = new ArrayList<>();
+        private long bytes;
+        private long lines;
+        private long trains;
+        private long stops;
+        private long malformedLines;
+        private long elapsedNanos;
+
+        private void problem(long lineNumber, String message) {
+            malformedLines++;
+            if (problems.size() < MAX_REPORTED_PROBLEMS) {
+                problems.add("line " + lineNumber + ": " + message);
+            }
+        }
+
+        public List<String> getProblems() {
+            return Collections.unmodifiableList(problems);
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getLines() {
+            return lines;
+        }
+
+        public long getTrains() {
+            return trains;
+        }
+
+        public long getStops() {
+            return stops;
+        }
+
+        public long getMalformedLines() {
+            return malformedLines;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getMegabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes / (1024.0 * 1024.0) / (elapsedNanos / 1e9);
+        }
+
+        public double getStopsPerSecond() {
+            return elapsedNanos == 0 ? 0 : stops / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d trains, %d stops from %d lines (%d malformed) in %.1f ms, %.1f MB/s, %.0f stops/s",
+                    trains, stops, lines, malformedLines, elapsedNanos / 1e6, getMegabytesPerSecond(), getStopsPerSecond());
+        }
+    }
+
+    private String[] internedStrings = new String[1024];
+    private byte[][] internedBytes = new byte[1024][];
+    private int internedCount;
+    private byte[] scratch = new byte[256];
+
+    private TrainFileLoader() {
+    }
+
+    public static Report load(Path path, Predicate<Train> sink) throws IOException {
+        return new TrainFileLoader().parse(path, sink);
+    }
+
+    private Report parse(Path path, Predicate<Train> sink) throws IOException {
+        Report report = new Report();
+        long started = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(MAP_WINDOW, size - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length == size;
+                int consumed = parseWindow(buffer, (int) length, last, report, sink);
+                if (consumed == 0) {
+                    throw new IOException("Line " + (report.lines + 1) + " is longer than " + MAP_WINDOW + " bytes");
+                }
+                position += consumed;
+            }
+            report.bytes = size;
+        }
+
+        report.elapsedNanos = System.nanoTime() - started;
+        return report;
+    }
+
+    private int parseWindow(MappedByteBuffer buffer, int length, boolean last, Report report, Predicate<Train> sink) {
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd == length && !last) {
+                return lineStart;
+            }
+
+            report.lines++;
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            parseLine(buffer, lineStart, contentEnd, report, sink);
+            lineStart = lineEnd + 1;
+        }
+        return length;
+    }
+
+    private void parseLine(MappedByteBuffer buffer, int start, int end, Report report, Predicate<Train> sink) {
+        if (start == end) {
+            return;
+        }
+
+        int colon = -1;
+        boolean semicolon = false;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == ':') {
+                colon = i;
+                break;
+            }
+            if (b == ';') {
+                semicolon = true;
+            }
+        }
+
+        if (colon == -1) {
+            report.problem(report.lines, semicolon
+                    ? "uses ';' delimiters, expected 'name:station,station,...'"
+                    : "missing ':' between train name and stations");
+            return;
+        }
+        if (colon == start) {
+            report.problem(report.lines, "empty train name");
+            return;
+        }
+
+        String name = decode(buffer, start, colon);
+        String days = null;
+        int bar = name.lastIndexOf('|');
+        if (bar != -1) {
+            days = name.substring(bar + 1);
+            name = name.substring(0, bar).trim();
+        }
+
+        List<String> stations = new ArrayList<>();
+        List<String> arrivals = null;
+        List<String> departures = null;
+        int tokenStart = colon + 1;
+        for (int i = tokenStart; i <= end; i++) {
+            if (i == end || buffer.get(i) == ',') {
+                if (i > tokenStart) {
+                    int stationEnd = indexOf(buffer, tokenStart, i, (byte) '|');
+                    if (stationEnd != i && arrivals == null) {
+                        if (!stations.isEmpty()) {
+                            report.problem(report.lines, "train '" + name + "' mixes timed and untimed stops");
+                            return;
+                        }
+                        arrivals = new ArrayList<>();
+                        departures = new ArrayList<>();
+                    }
+                    if (arrivals != null) {
+                        if (stationEnd == i) {
+                            report.problem(report.lines, "train '" + name + "' mixes timed and untimed stops");
+                            return;
+                        }
+                        int timeEnd = indexOf(buffer, stationEnd + 1, i, (byte) '|');
+                        arrivals.add(decode(buffer, stationEnd + 1, timeEnd).trim());
+                        departures.add(timeEnd == i ? "" : decode(buffer, timeEnd + 1, i).trim());
+                    }
+                    stations.add(intern(buffer, tokenStart, stationEnd));
+                }
+                tokenStart = i + 1;
+            }
+        }
+
+        if (stations.isEmpty()) {
+            report.problem(report.lines, "train '" + name + "' has no stations");
+            return;
+        }
+
+        Train train;
+        try {
+            if (arrivals == null && days != null) {
+                throw new IllegalArgumentException("service days given for a train without times");
+            }
+            train = arrivals == null
+                    ? new Train(name, stations)
+                    : new Train(name, stations, Timetable.parse(arrivals, departures, days));
+        } catch (IllegalArgumentException e) {
+            report.problem(report.lines, "train '" + name + "': " + e.getMessage());
+            return;
+        }
+        if (!sink.test(train)) {
+            report.problem(report.lines, "duplicate train '" + name + "' skipped");
+            return;
+        }
+        report.trains++;
+        report.stops += stations.size();
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, int start, int end, byte value) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private String decode(MappedByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private String intern(MappedByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        hash = spread(hash);
+
+        int mask = internedStrings.length - 1;
+        int slot = hash & mask;
+        while (internedStrings[slot] != null) {
+            if (sameBytes(internedBytes[slot], buffer, start, length)) {
+                return internedStrings[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes, 0, length);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        internedStrings[slot] = value;
+        internedBytes[slot] = bytes;
+        if (++internedCount * 2 > internedStrings.length) {
+            growInternTable();
+        }
+        return value;
+    }
+
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean sameBytes(byte[] bytes, MappedByteBuffer buffer, int start, int length) {
+        if (bytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void growInternTable() {
+        String[] oldStrings = internedStrings;
+        byte[][] oldBytes = internedBytes;
+        internedStrings = new String[oldStrings.length * 2];
+        internedBytes = new byte[oldStrings.length * 2][];
+        int mask = internedStrings.length - 1;
+
+        for (int i = 0; i < oldStrings.length; i++) {
+            if (oldStrings[i] == null)
+                continue;
+
+            int hash = 1;
+            for (byte b : oldBytes[i]) {
+                hash = 31 * hash + b;
+            }
+            int slot = spread(hash) & mask;
+            while (internedStrings[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            internedStrings[slot] = oldStrings[i];
+            internedBytes[slot] = oldBytes[i];
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,310 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+public final class TrainJournal implements Closeable {
+
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte UPDATE = 3;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final long FLUSH_INTERVAL_MS = 50;
+
+    public interface Handler {
+        void add(Train train);
+
+        void remove(String trainName);
+
+        void update(String oldTrainName, Train newTrain);
+    }
+
+    private final Path path;
+    private final Path compactingPath;
+    private final ScheduledExecutorService executor;
+    private FileChannel channel;
+    private boolean dirty;
+    private Future<?> compaction;
+
+    public TrainJournal(Path path) throws IOException {
+        this.path = path;
+        this.compactingPath = path.resolveSibling(path.getFileName() + ".compacting");
+        this.channel = open(path);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "train-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    public synchronized int replay(Handler handler) throws IOException {
+        int applied = 0;
+        if (Files.exists(compactingPath)) {
+            try (FileChannel pending = FileChannel.open(compactingPath, StandardOpenOption.READ)) {
+                applied += readRecords(pending, handler, new long[1]);
+            }
+        }
+
+        long[] validLength = new long[1];
+        channel.position(0);
+        applied += readRecords(channel, handler, validLength);
+        if (validLength[0] < channel.size()) {
+            System.err.println("Discarding " + (channel.size() - validLength[0]) + " torn bytes at the end of " + path);
+            channel.truncate(validLength[0]);
+        }
+        channel.position(validLength[0]);
+        return applied;
+    }
+
+    private static int readRecords(FileChannel source, Handler handler, long[] validLength) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(source), 1 << 16));
+        int applied = 0;
+        long offset = 0;
+        while (true) {
+            byte[] payload;
+            try {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || length > source.size() - offset - RECORD_HEADER_SIZE) {
+                    break;
+                }
+                payload = new byte[length];
+                in.readFully(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+            } catch (EOFException e) {
+                break;
+            }
+
+            apply(payload, handler);
+            offset += RECORD_HEADER_SIZE + payload.length;
+            applied++;
+        }
+        validLength[0] = offset;
+        return applied;
+    }
+
+    private static void apply(byte[] payload, Handler handler) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        switch (op) {
+            case ADD:
+                handler.add(readTrain(in));
+                break;
+            case REMOVE:
+                handler.remove(readString(in));
+                break;
+            case UPDATE:
+                String oldTrainName = readString(in);
+                handler.update(oldTrainName, readTrain(in));
+                break;
+            default:
+                throw new IOException("Unknown journal operation " + op);
+        }
+    }
+
+    public void logAdd(Train train) {
+        append(ADD, null, train);
+    }
+
+    public void logRemove(String trainName) {
+        append(REMOVE, trainName, null);
+    }
+
+    public void logUpdate(String oldTrainName, Train newTrain) {
+        append(UPDATE, oldTrainName, newTrain);
+    }
+
+    private void append(byte op, String trainName, Train train) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(op);
+            if (trainName != null) {
+                writeString(out, trainName);
+            }
+            if (train != null) {
+                writeTrain(out, train);
+            }
+            byte[] payload = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+            record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+            synchronized (this) {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+                dirty = true;
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to journal " + path + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void sync() throws IOException {
+        if (dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            System.err.println("Error syncing journal " + path + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    public synchronized void compact(List<Train> trains, Path snapshotPath) throws IOException {
+        if (compaction != null && !compaction.isDone()) {
+            return;
+        }
+
+        sync();
+        if (Files.exists(compactingPath)) {
+            try (FileChannel pending = FileChannel.open(compactingPath, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                long position = 0;
+                while (position < channel.size()) {
+                    position += channel.transferTo(position, channel.size() - position, pending);
+                }
+                pending.force(true);
+            }
+            channel.truncate(0);
+        } else {
+            channel.close();
+            Files.move(path, compactingPath, StandardCopyOption.ATOMIC_MOVE);
+            channel = open(path);
+        }
+
+        List<Train> state = new ArrayList<>(trains);
+        compaction = executor.submit(() -> {
+            try {
+                TrainSnapshot.write(snapshotPath, state);
+                Files.deleteIfExists(compactingPath);
+            } catch (IOException e) {
+                System.err.println("Error compacting journal " + path + ": " + e.getMessage());
+            }
+        });
+    }
+
+    public void awaitCompaction() {
+        Future<?> pending;
+        synchronized (this) {
+            pending = compaction;
+        }
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error compacting journal " + path + ": " + e.getCause());
+        }
+    }
+
+    public synchronized void reset() throws IOException {
+        channel.truncate(0);
+        channel.force(true);
+        dirty = false;
+        Files.deleteIfExists(compactingPath);
+    }
+
+    @Override
+    public void close() throws IOException {
+        awaitCompaction();
+        executor.shutdown();
+        synchronized (this) {
+            sync();
+            channel.close();
+        }
+    }
+
+    private static void writeTrain(DataOutputStream out, Train train) throws IOException {
+        writeString(out, train.getName());
+        out.writeInt(train.getStations().size());
+        for (String station : train.getStations()) {
+            writeString(out, station);
+        }
+        Timetable timetable = train.getTimetable();
+        if (timetable != null) {
+            out.writeByte(timetable.getServiceDays());
+            for (int i = 0; i < timetable.getStopCount(); i++) {
+                out.writeShort(timetable.getArrival(i));
+                out.writeShort(timetable.getDeparture(i));
+            }
+        }
+    }
+
+    private static Train readTrain(DataInputStream in) throws IOException {
+        String name = readString(in);
+        int count = in.readInt();
+        List<String> stations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            stations.add(readString(in));
+        }
+        if (in.available() == 0) {
+            return new Train(name, stations);
+        }
+        int serviceDays = in.readByte();
+        int[] arrivals = new int[count];
+        int[] departures = new int[count];
+        for (int i = 0; i < count; i++) {
+            arrivals[i] = in.readShort();
+            departures[i] = in.readShort();
+        }
+        return new Train(name, stations, new Timetable(arrivals, departures, serviceDays));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
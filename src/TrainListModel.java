@@ -0,0 +1,76 @@
+import javax.swing.AbstractListModel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class TrainListModel extends AbstractListModel<Train> implements TrainManager.Listener {
+
+    private static final long serialVersionUID = 1L;
+    private static final int TEXT_CACHE_SIZE = 1024;
+
+    private final transient TrainManager trainManager;
+    private final transient Map<Train, String> rowText;
+    private TrainOrder order;
+
+    public TrainListModel(TrainManager trainManager) {
+        this.trainManager = trainManager;
+        this.rowText = new LinkedHashMap<>(TEXT_CACHE_SIZE * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Train, String> eldest) {
+                return size() > TEXT_CACHE_SIZE;
+            }
+        };
+        trainManager.addListener(this);
+    }
+
+    public TrainOrder getOrder() {
+        return order;
+    }
+
+    public void setOrder(TrainOrder order) {
+        if (this.order == order) {
+            return;
+        }
+        this.order = order;
+        if (getSize() > 0) {
+            fireContentsChanged(this, 0, getSize() - 1);
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return order == null ? trainManager.getTrains().size() : trainManager.getSortedView(order).size();
+    }
+
+    @Override
+    public Train getElementAt(int index) {
+        return order == null ? trainManager.getTrains().get(index) : trainManager.getSortedView(order).get(index);
+    }
+
+    public String getText(Train train) {
+        String text = rowText.get(train);
+        if (text == null) {
+            text = train.toString();
+            rowText.put(train, text);
+        }
+        return text;
+    }
+
+    @Override
+    public void trainAdded(Train train, int index) {
+        int row = order == null ? index : trainManager.getSortedView(order).rank(train);
+        fireIntervalAdded(this, row, row);
+    }
+
+    @Override
+    public void trainRemoved(Train train, int index) {
+        rowText.remove(train);
+        int row = order == null ? index : trainManager.getSortedView(order).rank(train);
+        fireIntervalRemoved(this, row, row);
+    }
+
+    @Override
+    public void trainsChanged() {
+        rowText.clear();
+        fireContentsChanged(this, 0, Math.max(0, getSize() - 1));
+    }
+}
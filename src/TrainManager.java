@@ -1,173 +1,887 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 public class TrainManager {
 
+    public interface Listener {
+        void trainAdded(Train train, int index);
+
+        void trainRemoved(Train train, int index);
+
+        void trainsChanged();
+    }
+
     private List<Train> trains;
+    private final Map<String, Train> trainsByName;
     private final CustomGraph<String> stationGraph;
-    private static final String SAVE_FILE = "trains.txt";
+    private final StationIndex stationIndex;
+    private final StationInterner stationInterner;
+    private RoutingNetwork routingNetwork;
+    private NetworkSnapshot snapshot;
+    private boolean snapshotStale = true;
+    private ConnectionTable connectionTable;
+    private final ConnectionScan connectionScan;
+    private final Map<String, Integer> transferTimes;
+    private StationTrie stationTrie;
+    private final StationComponents stationComponents;
+    private boolean componentsStale;
+    private final RouteCache routeCache;
+    private final Map<TrainOrder, SortedTrainView> sortedViews;
+    private TrainFileLoader.Report lastLoadReport;
+    private TrainJournal journal;
+    private final boolean persistent;
+    private final boolean seedDefaults;
+    private TransferMatrix transferMatrix;
+    private final BitSet dirtyTransferRows;
+    private long trainsFingerprint;
+    private volatile long trainHeapBytes;
+    private final List<Listener> listeners;
+    private final TrainMetrics metrics;
+    private final String saveFile;
+    private final String snapshotFile;
+    private final String journalFile;
+    private final String matrixFile;
+    private final String transfersFile;
+    private static final String DEFAULT_NAME = "trains";
+    private static final int MATRIX_MAX_TRANSFERS = Byte.MAX_VALUE - 1;
+    private static final long JOURNAL_COMPACT_BYTES = 4L << 20;
+    private static final int ROUTE_CACHE_SIZE = 512;
 
     public TrainManager() {
+        this(DEFAULT_NAME, true, true);
+    }
+
+    public TrainManager(String name) {
+        this(name, true, false);
+    }
+
+    private TrainManager(String name, boolean persistent, boolean seedDefaults) {
+        this.saveFile = name + ".txt";
+        this.snapshotFile = name + ".bin";
+        this.journalFile = name + ".journal";
+        this.matrixFile = name + ".matrix";
+        this.transfersFile = name + ".transfers";
         this.trains = new ArrayList<>();
+        this.trainsByName = new HashMap<>();
         this.stationGraph = new CustomGraph<>();
-        loadFromFile();
+        this.stationIndex = new StationIndex();
+        this.stationInterner = new StationInterner();
+        this.stationComponents = new StationComponents();
+        this.connectionScan = new ConnectionScan();
+        this.transferTimes = new HashMap<>();
+        this.routeCache = new RouteCache(ROUTE_CACHE_SIZE);
+        this.listeners = new ArrayList<>();
+        this.metrics = new TrainMetrics();
+        this.persistent = persistent;
+        this.seedDefaults = seedDefaults;
+        this.dirtyTransferRows = new BitSet();
+        this.sortedViews = new EnumMap<>(TrainOrder.class);
+        for (TrainOrder order : TrainOrder.values()) {
+            sortedViews.put(order, new SortedTrainView(order.getComparator()));
+        }
+        metrics.gauge("trains", () -> trainsByName.size());
+        metrics.gauge("stations", () -> stationGraph.getNodeCount());
+        metrics.gauge("station_links", () -> stationGraph.getEdgeCount());
+        metrics.gauge("train_heap_bytes", () -> trainHeapBytes);
+        metrics.gauge("train_heap_bytes_per_train", () -> {
+            int count = trainsByName.size();
+            return count == 0 ? 0 : trainHeapBytes / count;
+        });
+        metrics.gauge("station_arena_bytes", StationArena::getHeapBytes);
+        metrics.gauge("route_cache_entries", () -> routeCache.size());
+        metrics.gauge("route_cache_hits", () -> routeCache.getHits());
+        metrics.gauge("route_cache_misses", () -> routeCache.getMisses());
+        if (persistent) {
+            loadFromFile();
+            loadTransferTimes();
+            openJournal();
+            metrics.register(saveFile);
+        }
+    }
+
+    public static TrainManager inMemory() {
+        return new TrainManager(DEFAULT_NAME, false, false);
     }
 
     public List<Train> getTrains() {
         return trains;
     }
 
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public TrainMetrics getMetrics() {
+        return metrics;
+    }
+
     public boolean addTrain(Train train) {
-        if (trains.contains(train)) {
+        long started = System.nanoTime();
+        try {
+            if (!insertTrain(train)) {
+                metrics.error(TrainMetrics.Operation.ADD_TRAIN);
+                return false;
+            }
+            if (journal != null) {
+                journal.logAdd(train);
+                compactJournalIfNeeded();
+            }
+            return true;
+        } finally {
+            metrics.record(TrainMetrics.Operation.ADD_TRAIN, started);
+        }
+    }
+
+    public void removeTrain(String trainName) {
+        long started = System.nanoTime();
+        try {
+            if (deleteTrain(trainName) != null && journal != null) {
+                journal.logRemove(trainName);
+                compactJournalIfNeeded();
+            }
+        } finally {
+            metrics.record(TrainMetrics.Operation.REMOVE_TRAIN, started);
+        }
+    }
+
+    public boolean updateTrain(String oldTrainName, Train newTrain) {
+        long started = System.nanoTime();
+        try {
+            String newKey = StationIndex.normalize(newTrain.getName());
+            if (!newKey.equals(StationIndex.normalize(oldTrainName)) && trainsByName.containsKey(newKey)) {
+                metrics.error(TrainMetrics.Operation.UPDATE_TRAIN);
+                return false;
+            }
+            deleteTrain(oldTrainName);
+            insertTrain(newTrain);
+            if (journal != null) {
+                journal.logUpdate(oldTrainName, newTrain);
+                compactJournalIfNeeded();
+            }
+            return true;
+        } finally {
+            metrics.record(TrainMetrics.Operation.UPDATE_TRAIN, started);
+        }
+    }
+
+    private boolean insertTrain(Train train) {
+        String key = StationIndex.normalize(train.getName());
+        if (trainsByName.containsKey(key)) {
             return false;
         }
-        trains.add(train);
-        rebuildGraph();
+        trainsByName.put(key, train);
+        indexTrain(train);
+        if (transferMatrix != null) {
+            markComponentDirty(train);
+        }
+        routingNetwork = null;
+        snapshotStale = true;
+        routeCache.trainAdded(train, stationInterner);
+        for (Listener listener : listeners) {
+            listener.trainAdded(train, trains.size() - 1);
+        }
         return true;
     }
 
-    public void removeTrain(String trainName) {
-        trains.removeIf(train -> train.getName().equalsIgnoreCase(trainName));
-        rebuildGraph();
+    private void indexTrain(Train train) {
+        trains.add(train);
+        for (SortedTrainView view : sortedViews.values()) {
+            view.add(train);
+        }
+        stationIndex.add(train);
+        addTrainEdges(train);
+        trainsFingerprint += fingerprint(train);
+        trainHeapBytes += train.getHeapBytes();
     }
 
-    public void updateTrain(String oldTrainName, Train newTrain) {
-        removeTrain(oldTrainName);
-        addTrain(newTrain);
+    public long getTrainHeapBytes() {
+        return trainHeapBytes;
     }
 
-    private void rebuildGraph() {
-        stationGraph.clear();
-        for (Train train : trains) {
-            List<String> stations = train.getStations();
-            if (stations.size() < 2)
+    public List<Train> addTrains(Collection<Train> newTrains) {
+        return addTrains(newTrains, true);
+    }
+
+    public List<Train> addTrains(Collection<Train> newTrains, boolean save) {
+        long started = System.nanoTime();
+        List<Train> duplicates = new ArrayList<>();
+        int added = 0;
+        for (Train train : newTrains) {
+            if (trainsByName.putIfAbsent(StationIndex.normalize(train.getName()), train) != null) {
+                duplicates.add(train);
                 continue;
+            }
+            indexTrain(train);
+            if (!save && journal != null) {
+                journal.logAdd(train);
+            }
+            added++;
+        }
+        if (added > 0) {
+            routingNetwork = null;
+            snapshotStale = true;
+            if (transferMatrix != null) {
+                dirtyTransferRows.set(0, Math.max(transferMatrix.getCapacity(), stationInterner.size()));
+            }
+            routeCache.clear();
+            for (Listener listener : listeners) {
+                listener.trainsChanged();
+            }
+            if (journal != null) {
+                if (save) {
+                    saveToFile();
+                } else {
+                    compactJournalIfNeeded();
+                }
+            }
+        }
+        metrics.record(TrainMetrics.Operation.ADD_TRAINS, started);
+        return duplicates;
+    }
 
-            for (int i = 0; i < stations.size() - 1; i++) {
-                stationGraph.addEdge(stations.get(i), stations.get(i + 1));
+    public TrainCsvImporter.Report importFromCsv(Path path) throws IOException {
+        TrainCsvImporter.Batch batch;
+        try {
+            batch = TrainCsvImporter.read(path);
+        } catch (IOException e) {
+            metrics.error(TrainMetrics.Operation.IMPORT_CSV);
+            throw e;
+        }
+        return applyImport(batch);
+    }
+
+    public TrainCsvImporter.Report applyImport(TrainCsvImporter.Batch batch) {
+        long started = System.nanoTime();
+        TrainCsvImporter.Report report = batch.getReport();
+        for (Train duplicate : addTrains(batch.getTrains())) {
+            report.duplicate(duplicate);
+        }
+        return completeImport(report, started);
+    }
+
+    public TrainCsvImporter.Report completeImport(TrainCsvImporter.Report report, long started) {
+        report.built(System.nanoTime() - started);
+        metrics.record(TrainMetrics.Operation.IMPORT_CSV, started - report.getParseNanos());
+        return report;
+    }
+
+    private Train deleteTrain(String trainName) {
+        Train train = trainsByName.remove(StationIndex.normalize(trainName));
+        if (train == null) {
+            return null;
+        }
+        int index = trains.indexOf(train);
+        trains.remove(index);
+        for (SortedTrainView view : sortedViews.values()) {
+            view.remove(train);
+        }
+        stationIndex.remove(train);
+        if (transferMatrix != null) {
+            markComponentDirty(train);
+        }
+        trainsFingerprint -= fingerprint(train);
+        trainHeapBytes -= train.getHeapBytes();
+        removeTrainEdges(train);
+        routingNetwork = null;
+        snapshotStale = true;
+        routeCache.trainRemoved(train);
+        for (Listener listener : listeners) {
+            listener.trainRemoved(train, index);
+        }
+        return train;
+    }
+
+    private void addTrainEdges(Train train) {
+        int nodeCount = stationGraph.getNodeCount();
+        List<String> stations = train.getStations();
+        String previous = null;
+        int previousId = -1;
+        for (String station : stations) {
+            int id = stationInterner.intern(station);
+            String canonical = stationInterner.getName(id);
+            if (previous != null) {
+                stationGraph.addEdge(previous, canonical);
+                if (!componentsStale) {
+                    stationComponents.ensureStations(stationInterner.size());
+                    stationComponents.union(previousId, id);
+                }
+            }
+            previous = canonical;
+            previousId = id;
+        }
+        if (stationGraph.getNodeCount() != nodeCount) {
+            stationTrie = null;
+        }
+    }
+
+    private void removeTrainEdges(Train train) {
+        int nodeCount = stationGraph.getNodeCount();
+        List<String> stations = train.getStations();
+        for (int i = 0; i < stations.size() - 1; i++) {
+            String source = stationInterner.canonical(stations.get(i));
+            String destination = stationInterner.canonical(stations.get(i + 1));
+            if (stationGraph.getEdgeMultiplicity(source, destination) == 1) {
+                componentsStale = true;
+            }
+            stationGraph.removeEdge(source, destination);
+        }
+        if (stationGraph.getNodeCount() != nodeCount) {
+            stationTrie = null;
+        }
+    }
+
+    public RoutingNetwork getRoutingNetwork() {
+        if (routingNetwork == null) {
+            long started = System.nanoTime();
+            routingNetwork = RoutingNetwork.build(trains, stationInterner, stationGraph);
+            metrics.record(TrainMetrics.Operation.REBUILD_ROUTING_NETWORK, started);
+        }
+        return routingNetwork;
+    }
+
+    public StationComponents getStationComponents() {
+        if (componentsStale) {
+            long started = System.nanoTime();
+            stationComponents.clear();
+            stationComponents.ensureStations(stationInterner.size());
+            for (String station : stationGraph.getNodes()) {
+                int id = stationInterner.find(station);
+                for (String neighbor : stationGraph.getNeighbors(station)) {
+                    stationComponents.union(id, stationInterner.find(neighbor));
+                }
             }
+            componentsStale = false;
+            metrics.record(TrainMetrics.Operation.REBUILD_COMPONENTS, started);
         }
+        stationComponents.ensureStations(stationInterner.size());
+        return stationComponents;
+    }
+
+    public boolean areConnected(String start, String end) {
+        int from = stationInterner.find(start);
+        int to = stationInterner.find(end);
+        return from != -1 && to != -1 && getStationComponents().isConnected(from, to);
+    }
+
+    public List<StationHubs.Hub> findHubs(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        long started = System.nanoTime();
+        List<StationHubs.Hub> hubs = snapshot().findHubs(limit);
+        metrics.record(TrainMetrics.Operation.FIND_HUBS, started);
+        return hubs;
+    }
+
+    public StationTrie getStationTrie() {
+        if (stationTrie == null) {
+            stationTrie = StationTrie.build(stationGraph.getNodes());
+        }
+        return stationTrie;
+    }
+
+    public CsrGraph getStationGraph() {
+        return getRoutingNetwork().getGraph();
     }
 
     public List<Train> findTrainsByStation(String stationName) {
-        return trains.stream()
-                .filter(train -> train.getStations().stream()
-                        .anyMatch(s -> s.equalsIgnoreCase(stationName)))
-                .collect(Collectors.toList());
+        long started = System.nanoTime();
+        List<Train> result = stationIndex.getTrains(stationName);
+        metrics.record(TrainMetrics.Operation.FIND_TRAINS_BY_STATION, started, stationName, null);
+        return result;
     }
 
     public Train findDirectRoute(String start, String end) {
-        for (Train train : trains) {
-            List<String> stations = train.getStations();
-            int startIndex = -1;
-            int endIndex = -1;
-            for (int i = 0; i < stations.size(); i++) {
-                if (stations.get(i).equalsIgnoreCase(start))
-                    startIndex = i;
-                if (stations.get(i).equalsIgnoreCase(end))
-                    endIndex = i;
+        long started = System.nanoTime();
+        Train result = stationIndex.findDirect(start, end);
+        metrics.record(TrainMetrics.Operation.FIND_DIRECT_ROUTE, started, start, end);
+        return result;
+    }
+
+    public List<Journey> findJourneys(String start, String end, int maxTransfers) {
+        long started = System.nanoTime();
+        if (!areConnected(start, end)) {
+            metrics.record(TrainMetrics.Operation.FIND_JOURNEYS, started, start, end);
+            return Collections.emptyList();
+        }
+        List<Journey> journeys = snapshot().findJourneys(start, end, maxTransfers);
+        metrics.record(TrainMetrics.Operation.FIND_JOURNEYS, started, start, end);
+        return journeys;
+    }
+
+    public RouteMatrix findTransfersFrom(String origin, int maxTransfers) {
+        long started = System.nanoTime();
+        RouteMatrix result = NetworkSnapshot.of(this).findTransfersFrom(origin, maxTransfers);
+        metrics.record(TrainMetrics.Operation.FIND_TRANSFERS, started, origin, null);
+        return result;
+    }
+
+    public RouteMatrix findTransferMatrix(List<String> origins, List<String> destinations, int maxTransfers) {
+        long started = System.nanoTime();
+        RouteMatrix result = NetworkSnapshot.of(this).findTransferMatrix(origins, destinations, maxTransfers);
+        metrics.record(TrainMetrics.Operation.FIND_TRANSFERS, started);
+        return result;
+    }
+
+    public byte[] findTransfers(List<String> from, List<String> to, int maxTransfers) {
+        long started = System.nanoTime();
+        byte[] result = NetworkSnapshot.of(this).findTransfers(from, to, maxTransfers);
+        metrics.record(TrainMetrics.Operation.FIND_TRANSFERS, started);
+        return result;
+    }
+
+    public int getMinimumTrains(String start, String end) {
+        long started = System.nanoTime();
+        int result = TransferMatrix.NO_ROUTE;
+        if (areConnected(start, end)) {
+            result = getTransferMatrix().get(stationInterner.find(start), stationInterner.find(end));
+        }
+        metrics.record(TrainMetrics.Operation.GET_MINIMUM_TRAINS, started, start, end);
+        return result;
+    }
+
+    public TransferMatrix getTransferMatrix() {
+        int stationCount = stationInterner.size();
+        if (transferMatrix == null) {
+            transferMatrix = openTransferMatrix(stationCount);
+        }
+        try {
+            transferMatrix = transferMatrix.ensureCapacity(stationCount);
+        } catch (IOException e) {
+            System.err.println("Error growing transfer matrix " + matrixFile + ": " + e.getMessage());
+            transferMatrix = TransferMatrix.inMemory(stationCount);
+            dirtyTransferRows.set(0, stationCount);
+        }
+        if (transferMatrix.getStationCount() != stationCount) {
+            if (transferMatrix.getStationCount() < stationCount) {
+                dirtyTransferRows.set(transferMatrix.getStationCount(), stationCount);
             }
+            transferMatrix.setStationCount(stationCount);
+        }
+        if (dirtyTransferRows.isEmpty()) {
+            return transferMatrix;
+        }
 
-            if (startIndex != -1 && endIndex != -1 && startIndex < endIndex) {
-                return train;
+        long started = System.nanoTime();
+        TransferMatrix matrix = transferMatrix;
+        int[] origins = dirtyTransferRows.stream().filter(s -> s < stationCount).toArray();
+        NetworkSnapshot.of(this).forEachTransferRow(origins, MATRIX_MAX_TRANSFERS, (origin, row) -> {
+            for (int s = 0; s < stationCount; s++) {
+                if (row[s] != TransferMatrix.NO_ROUTE) {
+                    row[s]++;
+                }
+            }
+            row[origin] = 0;
+            matrix.writeRow(origin, row, stationCount);
+        });
+        dirtyTransferRows.clear();
+        matrix.setFingerprint(networkFingerprint());
+        metrics.record(TrainMetrics.Operation.REFRESH_TRANSFER_MATRIX, started);
+        return matrix;
+    }
+
+    private TransferMatrix openTransferMatrix(int stationCount) {
+        if (persistent) {
+            try {
+                TransferMatrix matrix = TransferMatrix.open(Paths.get(matrixFile));
+                if (matrix != null && matrix.getStationCount() == stationCount
+                        && matrix.getFingerprint() == networkFingerprint()) {
+                    return matrix;
+                }
+                if (matrix != null) {
+                    matrix.close();
+                }
+                dirtyTransferRows.set(0, stationCount);
+                return TransferMatrix.create(Paths.get(matrixFile), stationCount);
+            } catch (IOException e) {
+                System.err.println("Error opening transfer matrix " + matrixFile + ": " + e.getMessage());
             }
         }
-        return null;
+        dirtyTransferRows.set(0, stationCount);
+        return TransferMatrix.inMemory(stationCount);
     }
 
-    public List<Train> findRouteWithOneTransfer(String start, String end) {
-        List<Train> trainsFromStart = findTrainsByStation(start);
+    private void markComponentDirty(Train train) {
+        Deque<String> queue = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+        for (String station : train.getStations()) {
+            String canonical = stationInterner.canonical(station);
+            if (visited.add(canonical)) {
+                queue.add(canonical);
+            }
+        }
+        while (!queue.isEmpty()) {
+            String station = queue.poll();
+            dirtyTransferRows.set(stationInterner.find(station));
+            if (stationGraph.getNodes().contains(station)) {
+                for (String neighbor : stationGraph.getNeighbors(station)) {
+                    if (visited.add(neighbor)) {
+                        queue.add(neighbor);
+                    }
+                }
+            }
+        }
+    }
+
+    private long networkFingerprint() {
+        long hash = trainsFingerprint;
+        for (int s = 0; s < stationInterner.size(); s++) {
+            hash = hash * 31 + StationIndex.normalize(stationInterner.getName(s)).hashCode();
+        }
+        return hash;
+    }
+
+    private static long fingerprint(Train train) {
+        long hash = StationIndex.normalize(train.getName()).hashCode();
+        for (String station : train.getStations()) {
+            hash = hash * 1_000_003 + StationIndex.normalize(station).hashCode();
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        return hash ^ (hash >>> 33);
+    }
+
+    public ConnectionTable getConnectionTable() {
+        RoutingNetwork network = getRoutingNetwork();
+        if (connectionTable == null || connectionTable.getNetwork() != network) {
+            connectionTable = ConnectionTable.build(network, transferTimes);
+        }
+        return connectionTable;
+    }
 
-        for (Train train1 : trainsFromStart) {
-            List<String> stations1 = train1.getStations();
-            int startIndex = stations1.indexOf(start);
+    public Journey findEarliestArrival(String start, String end, int day, int departAfter) {
+        long started = System.nanoTime();
+        Journey journey = areConnected(start, end)
+                ? connectionScan.earliestArrival(getConnectionTable(), start, end, day, departAfter)
+                : null;
+        metrics.record(TrainMetrics.Operation.FIND_EARLIEST_ARRIVAL, started, start, end);
+        return journey;
+    }
 
-            for (int i = startIndex + 1; i < stations1.size(); i++) {
-                String transferStation = stations1.get(i);
+    public void setMinimumTransferTime(String station, int minutes) {
+        if (station == null || station.trim().isEmpty()) {
+            throw new IllegalArgumentException("station must not be empty");
+        }
+        if (minutes < 0) {
+            throw new IllegalArgumentException("minimum transfer time must not be negative: " + minutes);
+        }
+        transferTimes.put(StationIndex.normalize(station.trim()), minutes);
+        connectionTable = null;
+        snapshotStale = true;
+        if (persistent) {
+            saveTransferTimes();
+        }
+    }
 
-                Train train2 = findDirectRoute(transferStation, end);
+    public Map<String, Integer> getMinimumTransferTimes() {
+        return Collections.unmodifiableMap(transferTimes);
+    }
 
-                if (train2 != null && !train1.getName().equals(train2.getName())) {
-                    List<Train> result = new ArrayList<>();
-                    result.add(train1);
-                    result.add(train2);
-                    return result;
+    public NetworkSnapshot snapshot() {
+        if (snapshotStale) {
+            snapshot = NetworkSnapshot.build(this, snapshot);
+            snapshotStale = false;
+        }
+        return snapshot;
+    }
+
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    public List<Train> findRouteWithOneTransfer(String start, String end) {
+        for (Journey journey : findJourneys(start, end, 1)) {
+            if (journey.getTransfers() == 1) {
+                List<Train> trains = journey.getTrains();
+                if (!trains.get(0).equals(trains.get(1))) {
+                    return trains;
                 }
+                return RouteEngine.findOneTransfer(start, end, this::findTrainsByStation);
             }
         }
         return new ArrayList<>();
     }
 
+    public SortedTrainView getSortedView(TrainOrder order) {
+        return sortedViews.get(order);
+    }
+
     public void sortTrainsByName() {
-        for (int i = 1; i < trains.size(); i++) {
-            Train key = trains.get(i);
-            int j = i - 1;
-            while (j >= 0 && trains.get(j).getStartStation().compareToIgnoreCase(key.getStartStation()) > 0) {
-                trains.set(j + 1, trains.get(j));
-                j = j - 1;
+        sortTrains(TrainOrder.START_STATION);
+    }
+
+    public void sortByNumberOfStops() {
+        sortTrains(TrainOrder.NUMBER_OF_STOPS);
+    }
+
+    private void sortTrains(TrainOrder order) {
+        List<Train> sorted = sortedViews.get(order).toList();
+        trains.clear();
+        trains.addAll(sorted);
+        snapshotStale = true;
+        for (Listener listener : listeners) {
+            listener.trainsChanged();
+        }
+    }
+
+    public void saveToFile() {
+        long started = System.nanoTime();
+        try {
+            if (journal != null) {
+                journal.awaitCompaction();
             }
-            trains.set(j + 1, key);
+            TrainSnapshot.write(Paths.get(snapshotFile), trains);
+            if (journal != null) {
+                journal.reset();
+            }
+        } catch (IOException e) {
+            metrics.error(TrainMetrics.Operation.SAVE_TO_FILE);
+            System.err.println("Error saving trains to file: " + e.getMessage());
+        } finally {
+            metrics.record(TrainMetrics.Operation.SAVE_TO_FILE, started);
         }
     }
 
-    public void sortByNumberOfStops() {
-        for (int i = 1; i < trains.size(); i++) {
-            Train key = trains.get(i);
-            int j = i - 1;
-            while (j >= 0 && trains.get(j).getNumberOfStops() > key.getNumberOfStops()) {
-                trains.set(j + 1, trains.get(j));
-                j = j - 1;
+    public void close() {
+        metrics.close();
+        if (transferMatrix != null) {
+            try {
+                transferMatrix.close();
+            } catch (IOException e) {
+                System.err.println("Error closing transfer matrix: " + e.getMessage());
             }
-            trains.set(j + 1, key);
+            transferMatrix = null;
         }
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing journal: " + e.getMessage());
+        }
+        journal = null;
     }
 
-    public void saveToFile() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(SAVE_FILE))) {
+    private void openJournal() {
+        try {
+            journal = new TrainJournal(Paths.get(journalFile));
+            journal.replay(new TrainJournal.Handler() {
+                @Override
+                public void add(Train train) {
+                    deleteTrain(train.getName());
+                    insertTrain(train);
+                }
+
+                @Override
+                public void remove(String trainName) {
+                    deleteTrain(trainName);
+                }
+
+                @Override
+                public void update(String oldTrainName, Train newTrain) {
+                    deleteTrain(oldTrainName);
+                    deleteTrain(newTrain.getName());
+                    insertTrain(newTrain);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error opening journal " + journalFile + ": " + e.getMessage());
+        }
+    }
+
+    private void compactJournalIfNeeded() {
+        try {
+            if (journal.size() > JOURNAL_COMPACT_BYTES) {
+                long started = System.nanoTime();
+                journal.compact(trains, Paths.get(snapshotFile));
+                metrics.record(TrainMetrics.Operation.COMPACT_JOURNAL, started);
+            }
+        } catch (IOException e) {
+            metrics.error(TrainMetrics.Operation.COMPACT_JOURNAL);
+            System.err.println("Error compacting journal " + journalFile + ": " + e.getMessage());
+        }
+    }
+
+    public void exportToText(Path path) throws IOException {
+        long started = System.nanoTime();
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
             for (Train train : trains) {
-                String line = train.getName() + ":" + String.join(",", train.getStations());
-                writer.println(line);
+                writer.println(train.toText());
             }
         } catch (IOException e) {
-            System.err.println("Error saving trains to file: " + e.getMessage());
+            metrics.error(TrainMetrics.Operation.EXPORT_TEXT);
+            throw e;
+        } finally {
+            metrics.record(TrainMetrics.Operation.EXPORT_TEXT, started);
+        }
+    }
+
+    public TrainFileLoader.Report importFromText(Path path) throws IOException {
+        long started = System.nanoTime();
+        try {
+            return readText(path, this::addTrain);
+        } catch (IOException e) {
+            metrics.error(TrainMetrics.Operation.IMPORT_TEXT);
+            throw e;
+        } finally {
+            metrics.record(TrainMetrics.Operation.IMPORT_TEXT, started);
+        }
+    }
+
+    private TrainFileLoader.Report readText(Path path, Predicate<Train> sink) throws IOException {
+        TrainFileLoader.Report report = TrainFileLoader.load(path, sink);
+        for (String problem : report.getProblems()) {
+            System.err.println("Skipped malformed entry in " + path + ", " + problem);
+        }
+        long unreported = report.getMalformedLines() - report.getProblems().size();
+        if (unreported > 0) {
+            System.err.println("Skipped " + unreported + " more malformed entries in " + path);
         }
+        return report;
+    }
+
+    public TrainFileLoader.Report getLastLoadReport() {
+        return lastLoadReport;
     }
 
     private void loadFromFile() {
-        File file = new File(SAVE_FILE);
+        long started = System.nanoTime();
+        try {
+            readSavedTrains();
+        } finally {
+            metrics.record(TrainMetrics.Operation.LOAD_FROM_FILE, started);
+        }
+    }
+
+    private void readSavedTrains() {
+        File snapshot = new File(snapshotFile);
+        if (snapshot.exists()) {
+            try {
+                clearAll();
+                TrainSnapshot.read(snapshot.toPath(), this::insertTrain);
+                return;
+            } catch (IOException e) {
+                metrics.error(TrainMetrics.Operation.LOAD_FROM_FILE);
+                System.err.println("Error loading trains from " + snapshotFile + ": " + e.getMessage());
+            }
+        }
+
+        File file = new File(saveFile);
         if (!file.exists()) {
             createDefaultData();
             return;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            trains.clear();
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(":", 2);
-                if (parts.length == 2) {
-                    String name = parts[0];
-                    List<String> stations = new ArrayList<>(Arrays.asList(parts[1].split(",")));
-                    trains.add(new Train(name, stations));
-                }
-            }
-            rebuildGraph();
+        try {
+            clearAll();
+            lastLoadReport = readText(file.toPath(), this::insertTrain);
+            System.out.println("Loaded " + saveFile + ": " + lastLoadReport);
         } catch (IOException e) {
+            metrics.error(TrainMetrics.Operation.LOAD_FROM_FILE);
             System.err.println("Error loading trains from file: " + e.getMessage());
             createDefaultData();
         }
     }
 
-    private void createDefaultData() {
+    private void loadTransferTimes() {
+        Path path = Paths.get(transfersFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            int lineNumber = 0;
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                int colon = line.lastIndexOf(':');
+                try {
+                    if (colon == -1) {
+                        throw new IllegalArgumentException("expected 'station:minutes'");
+                    }
+                    int minutes = Integer.parseInt(line.substring(colon + 1).trim());
+                    String station = line.substring(0, colon).trim();
+                    if (station.isEmpty() || minutes < 0) {
+                        throw new IllegalArgumentException("expected 'station:minutes'");
+                    }
+                    transferTimes.put(StationIndex.normalize(station), minutes);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipped malformed entry in " + transfersFile + ", line " + lineNumber + ": "
+                            + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading transfer times from " + transfersFile + ": " + e.getMessage());
+        }
+    }
+
+    private void saveTransferTimes() {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Paths.get(transfersFile), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, Integer> entry : transferTimes.entrySet()) {
+                writer.println(entry.getKey() + ":" + entry.getValue());
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving transfer times to " + transfersFile + ": " + e.getMessage());
+        }
+    }
+
+    private void clearAll() {
         this.trains = new ArrayList<>();
-        addTrain(new Train("Express 101", Arrays.asList("New York", "Philadelphia", "Baltimore", "Washington D.C.")));
-        addTrain(new Train("West Coast Line", Arrays.asList("Los Angeles", "San Jose", "San Francisco", "Sacramento")));
-        addTrain(new Train("Cross Country 45", Arrays.asList("Chicago", "Omaha", "Denver", "Salt Lake City")));
-        addTrain(new Train("Texas Eagle", Arrays.asList("Chicago", "St. Louis", "Dallas", "San Antonio")));
-        addTrain(new Train("Florida Flyer", Arrays.asList("Miami", "Orlando", "Jacksonville")));
-        rebuildGraph();
+        trainsByName.clear();
+        for (SortedTrainView view : sortedViews.values()) {
+            view.clear();
+        }
+        stationIndex.clear();
+        stationGraph.clear();
+        stationInterner.clear();
+        stationComponents.clear();
+        componentsStale = false;
+        routingNetwork = null;
+        snapshotStale = true;
+        stationTrie = null;
+        trainsFingerprint = 0;
+        trainHeapBytes = 0;
+        if (transferMatrix != null) {
+            dirtyTransferRows.set(0, transferMatrix.getCapacity());
+        }
+        routeCache.clear();
+        for (Listener listener : listeners) {
+            listener.trainsChanged();
+        }
+    }
+
+    private void createDefaultData() {
+        clearAll();
+        if (!seedDefaults) {
+            return;
+        }
+        insertTrain(new Train("Express 101", Arrays.asList("New York", "Philadelphia", "Baltimore", "Washington D.C.")));
+        insertTrain(new Train("West Coast Line", Arrays.asList("Los Angeles", "San Jose", "San Francisco", "Sacramento")));
+        insertTrain(new Train("Cross Country 45", Arrays.asList("Chicago", "Omaha", "Denver", "Salt Lake City")));
+        insertTrain(new Train("Texas Eagle", Arrays.asList("Chicago", "St. Louis", "Dallas", "San Antonio")));
+        insertTrain(new Train("Florida Flyer", Arrays.asList("Miami", "Orlando", "Jacksonville")));
     }
 }
\ No newline at end of file
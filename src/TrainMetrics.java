@@ -0,0 +1,271 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+public class TrainMetrics implements TrainMetricsMXBean {
+
+    public enum Operation {
+        ADD_TRAIN("addTrain"),
+        ADD_TRAINS("addTrains"),
+        REMOVE_TRAIN("removeTrain"),
+        UPDATE_TRAIN("updateTrain"),
+        FIND_TRAINS_BY_STATION("findTrainsByStation"),
+        FIND_DIRECT_ROUTE("findDirectRoute"),
+        FIND_JOURNEYS("findJourneys"),
+        FIND_EARLIEST_ARRIVAL("findEarliestArrival"),
+        FIND_TRANSFERS("findTransfers"),
+        GET_MINIMUM_TRAINS("getMinimumTrains"),
+        REBUILD_ROUTING_NETWORK("rebuildRoutingNetwork"),
+        REBUILD_COMPONENTS("rebuildComponents"),
+        FIND_HUBS("findHubs"),
+        REFRESH_TRANSFER_MATRIX("refreshTransferMatrix"),
+        LOAD_FROM_FILE("loadFromFile"),
+        SAVE_TO_FILE("saveToFile"),
+        IMPORT_TEXT("importFromText"),
+        IMPORT_CSV("importFromCsv"),
+        EXPORT_TEXT("exportToText"),
+        COMPACT_JOURNAL("compactJournal");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    @Name("trainmanager.SlowOperation")
+    @Label("Slow Train Manager Operation")
+    @Category("Train Manager")
+    static final class SlowOperationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Detail")
+        String detail;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    private static final long DEFAULT_SLOW_THRESHOLD_NANOS = 10_000_000L;
+
+    private final LongAdder[] counts;
+    private final LongAdder[] errors;
+    private final LatencyHistogram[] latencies;
+    private final Map<String, LongSupplier> gauges;
+    private volatile long slowThresholdNanos;
+    private ObjectName objectName;
+    private ScheduledExecutorService dumper;
+
+    public TrainMetrics() {
+        int operations = Operation.values().length;
+        this.counts = new LongAdder[operations];
+        this.errors = new LongAdder[operations];
+        this.latencies = new LatencyHistogram[operations];
+        for (int i = 0; i < operations; i++) {
+            counts[i] = new LongAdder();
+            errors[i] = new LongAdder();
+            latencies[i] = new LatencyHistogram();
+        }
+        this.gauges = new LinkedHashMap<>();
+        this.slowThresholdNanos = DEFAULT_SLOW_THRESHOLD_NANOS;
+    }
+
+    public void record(Operation operation, long startedNanos) {
+        record(operation, startedNanos, null, null);
+    }
+
+    public void record(Operation operation, long startedNanos, String from, String to) {
+        long elapsed = System.nanoTime() - startedNanos;
+        counts[operation.ordinal()].increment();
+        latencies[operation.ordinal()].record(elapsed);
+        if (elapsed >= slowThresholdNanos) {
+            SlowOperationEvent event = new SlowOperationEvent();
+            if (event.isEnabled()) {
+                event.operation = operation.getLabel();
+                event.detail = from == null ? null : to == null ? from : from + " -> " + to;
+                event.elapsed = elapsed;
+                event.commit();
+            }
+        }
+    }
+
+    public void error(Operation operation) {
+        errors[operation.ordinal()].increment();
+    }
+
+    public void gauge(String name, LongSupplier value) {
+        synchronized (gauges) {
+            gauges.put(name, value);
+        }
+    }
+
+    public long getCount(Operation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    public long getErrors(Operation operation) {
+        return errors[operation.ordinal()].sum();
+    }
+
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            result.put(operation.getLabel(), getCount(operation));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getErrors() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            result.put(operation.getLabel(), getErrors(operation));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getMeanMicros() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram latency = getLatency(operation);
+            long count = latency.getCount();
+            result.put(operation.getLabel(), count == 0 ? 0.0 : latency.getTotalNanos() / 1e3 / count);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getP99Micros() {
+        return percentileMicros(99);
+    }
+
+    @Override
+    public Map<String, Double> getMaxMicros() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            result.put(operation.getLabel(), getLatency(operation).getMaxNanos() / 1e3);
+        }
+        return result;
+    }
+
+    private Map<String, Double> percentileMicros(double percentile) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            result.put(operation.getLabel(), getLatency(operation).getPercentile(percentile) / 1e3);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        synchronized (gauges) {
+            for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+                result.put(gauge.getKey(), gauge.getValue().getAsLong());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long getSlowThresholdMicros() {
+        return slowThresholdNanos / 1000;
+    }
+
+    @Override
+    public void setSlowThresholdMicros(long micros) {
+        slowThresholdNanos = micros * 1000;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, Long> gauge : getGauges().entrySet()) {
+            result.append(gauge.getKey()).append(' ').append(gauge.getValue()).append('\n');
+        }
+        for (Operation operation : Operation.values()) {
+            if (getCount(operation) == 0 && getErrors(operation) == 0) {
+                continue;
+            }
+            result.append(operation.getLabel()).append(' ').append(getLatency(operation))
+                    .append(" errors=").append(getErrors(operation)).append('\n');
+        }
+        return result.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i].reset();
+            errors[i].reset();
+            latencies[i].reset();
+        }
+    }
+
+    public synchronized void register(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName candidate = new ObjectName("trainmanager:type=TrainManager,name=" + ObjectName.quote(name));
+            if (!server.isRegistered(candidate)) {
+                server.registerMBean(this, candidate);
+                objectName = candidate;
+            }
+        } catch (JMException e) {
+            System.err.println("Error registering metrics MBean: " + e.getMessage());
+        }
+    }
+
+    public synchronized void startPeriodicDump(long intervalSeconds, Consumer<String> sink) {
+        if (dumper != null || intervalSeconds <= 0) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "train-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> sink.accept(dump()), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void close() {
+        if (dumper != null) {
+            dumper.shutdown();
+            dumper = null;
+        }
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+                System.err.println("Error unregistering metrics MBean: " + e.getMessage());
+            }
+            objectName = null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+import java.util.Map;
+
+public interface TrainMetricsMXBean {
+
+    Map<String, Long> getCounts();
+
+    Map<String, Long> getErrors();
+
+    Map<String, Double> getMeanMicros();
+
+    Map<String, Double> getP99Micros();
+
+    Map<String, Double> getMaxMicros();
+
+    Map<String, Long> getGauges();
+
+    long getSlowThresholdMicros();
+
+    void setSlowThresholdMicros(long micros);
+
+    String dump();
+
+    void reset();
+}
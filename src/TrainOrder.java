@@ -0,0 +1,17 @@
+import java.util.Comparator;
+
+public enum TrainOrder {
+    START_STATION(Comparator.comparing(Train::getStartStation, String::compareToIgnoreCase)),
+    NUMBER_OF_STOPS(Comparator.comparingInt(Train::getNumberOfStops)),
+    NAME(Comparator.comparing(Train::getName, String::compareToIgnoreCase));
+
+    private final Comparator<Train> comparator;
+
+    TrainOrder(Comparator<Train> primary) {
+        this.comparator = primary.thenComparing(Train::getName, String::compareToIgnoreCase);
+    }
+
+    public Comparator<Train> getComparator() {
+        return comparator;
+    }
+}
\ No newline at end of file
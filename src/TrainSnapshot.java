@@ -0,0 +1,193 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+public class TrainSnapshot {
+
+    private static final int MAGIC = 0x54524E53;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final int CHECKSUM_SIZE = 4;
+
+    private TrainSnapshot() {
+    }
+
+    public static void write(Path path, List<Train> trains) throws IOException {
+        Map<String, Integer> stationIds = new HashMap<>();
+        List<String> stations = new ArrayList<>();
+        for (Train train : trains) {
+            for (String station : train.getStations()) {
+                if (stationIds.putIfAbsent(station, stations.size()) == null) {
+                    stations.add(station);
+                }
+            }
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), crc));
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeVarint(out, stations.size());
+            for (String station : stations) {
+                writeString(out, station);
+            }
+            writeVarint(out, trains.size());
+            for (Train train : trains) {
+                writeString(out, train.getName());
+                writeVarint(out, train.getStations().size());
+                for (String station : train.getStations()) {
+                    writeVarint(out, stationIds.get(station));
+                }
+                writeTimetable(out, train.getTimetable());
+            }
+            out.flush();
+
+            ByteBuffer checksum = ByteBuffer.allocate(CHECKSUM_SIZE).putInt((int) crc.getValue());
+            checksum.flip();
+            while (checksum.hasRemaining()) {
+                channel.write(checksum);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static int read(Path path, Predicate<Train> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large: " + size + " bytes");
+            }
+            if (size < HEADER_SIZE + CHECKSUM_SIZE) {
+                throw new IOException("Snapshot truncated: " + size + " bytes");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bodyEnd = (int) size - CHECKSUM_SIZE;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, bodyEnd));
+            if ((int) crc.getValue() != buffer.getInt(bodyEnd)) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a train snapshot");
+            }
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+
+            String[] stations = new String[readVarint(buffer)];
+            for (int i = 0; i < stations.length; i++) {
+                stations[i] = readString(buffer);
+            }
+
+            int trainCount = readVarint(buffer);
+            int loaded = 0;
+            for (int t = 0; t < trainCount; t++) {
+                String name = readString(buffer);
+                String[] stops = new String[readVarint(buffer)];
+                for (int i = 0; i < stops.length; i++) {
+                    stops[i] = stations[readVarint(buffer)];
+                }
+                Timetable timetable = version >= 2 ? readTimetable(buffer, stops.length) : null;
+                if (sink.test(new Train(name, Arrays.asList(stops), timetable))) {
+                    loaded++;
+                }
+            }
+
+            if (buffer.position() != bodyEnd) {
+                throw new IOException("Snapshot has " + (bodyEnd - buffer.position()) + " unexpected trailing bytes");
+            }
+            return loaded;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot: " + e, e);
+        }
+    }
+
+    private static void writeTimetable(DataOutputStream out, Timetable timetable) throws IOException {
+        if (timetable == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        writeVarint(out, timetable.getServiceDays());
+        int previous = 0;
+        for (int i = 0; i < timetable.getStopCount(); i++) {
+            writeVarint(out, timetable.getArrival(i) - previous);
+            writeVarint(out, timetable.getDeparture(i) - timetable.getArrival(i));
+            previous = timetable.getDeparture(i);
+        }
+    }
+
+    private static Timetable readTimetable(ByteBuffer buffer, int stopCount) {
+        int serviceDays = readVarint(buffer);
+        if (serviceDays == 0) {
+            return null;
+        }
+        int[] arrivals = new int[stopCount];
+        int[] departures = new int[stopCount];
+        int previous = 0;
+        for (int i = 0; i < stopCount; i++) {
+            arrivals[i] = previous + readVarint(buffer);
+            departures[i] = arrivals[i] + readVarint(buffer);
+            previous = departures[i];
+        }
+        return new Timetable(arrivals, departures, serviceDays);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readVarint(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint at " + buffer.position());
+    }
+}
\ No newline at end of file
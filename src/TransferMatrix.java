@@ -0,0 +1,243 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class TransferMatrix implements Closeable {
+
+    public static final byte NO_ROUTE = -1;
+
+    private static final int MAGIC = 0x54524D58;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int PAGE_BYTES = 1 << 30;
+    private static final int MIN_CAPACITY = 64;
+    private static final int MAX_CAPACITY = 1 << 18;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer header;
+    private final ByteBuffer[] pages;
+    private final int capacity;
+    private final int rowsPerPage;
+    private final byte[] noRoutes;
+    private int stationCount;
+    private long fingerprint;
+
+    private TransferMatrix(Path path, FileChannel channel, ByteBuffer header, ByteBuffer[] pages, int capacity,
+            int rowsPerPage) {
+        this.path = path;
+        this.channel = channel;
+        this.header = header;
+        this.pages = pages;
+        this.capacity = capacity;
+        this.rowsPerPage = rowsPerPage;
+        this.noRoutes = new byte[capacity];
+        Arrays.fill(noRoutes, NO_ROUTE);
+    }
+
+    public static TransferMatrix inMemory(int stationCount) {
+        int capacity = capacityFor(stationCount, 0);
+        int rowsPerPage = rowsPerPage(capacity);
+        ByteBuffer[] pages = new ByteBuffer[pageCount(capacity, rowsPerPage)];
+        for (int p = 0; p < pages.length; p++) {
+            pages[p] = ByteBuffer.allocateDirect(pageRows(p, capacity, rowsPerPage) * capacity);
+        }
+        TransferMatrix matrix = new TransferMatrix(null, null, ByteBuffer.allocateDirect(HEADER_SIZE), pages,
+                capacity, rowsPerPage);
+        matrix.clear();
+        return matrix;
+    }
+
+    public static TransferMatrix create(Path path, int stationCount) throws IOException {
+        TransferMatrix matrix = map(path, capacityFor(stationCount, 0), true);
+        matrix.clear();
+        return matrix;
+    }
+
+    public static TransferMatrix open(Path path) throws IOException {
+        if (!Files.exists(path) || Files.size(path) < HEADER_SIZE) {
+            return null;
+        }
+        int capacity;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header) == -1) {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return null;
+            }
+            header.getInt();
+            capacity = header.getInt();
+            if (capacity <= 0 || channel.size() != HEADER_SIZE + (long) capacity * capacity) {
+                return null;
+            }
+        }
+        return map(path, capacity, false);
+    }
+
+    private static TransferMatrix map(Path path, int capacity, boolean truncate) throws IOException {
+        FileChannel channel = truncate
+                ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int rowsPerPage = rowsPerPage(capacity);
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            ByteBuffer[] pages = new ByteBuffer[pageCount(capacity, rowsPerPage)];
+            for (int p = 0; p < pages.length; p++) {
+                long offset = HEADER_SIZE + (long) p * rowsPerPage * capacity;
+                pages[p] = channel.map(FileChannel.MapMode.READ_WRITE, offset,
+                        (long) pageRows(p, capacity, rowsPerPage) * capacity);
+            }
+            TransferMatrix matrix = new TransferMatrix(path, channel, header, pages, capacity, rowsPerPage);
+            if (!truncate) {
+                matrix.stationCount = header.getInt(8);
+                matrix.fingerprint = header.getLong(16);
+            }
+            return matrix;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static int capacityFor(int stationCount, int current) {
+        if (stationCount > MAX_CAPACITY) {
+            throw new IllegalStateException("Too many stations for a transfer matrix: " + stationCount);
+        }
+        return Math.min(MAX_CAPACITY, Math.max(MIN_CAPACITY, Math.max(stationCount, current + current / 2)));
+    }
+
+    private static int rowsPerPage(int capacity) {
+        return Math.max(1, PAGE_BYTES / capacity);
+    }
+
+    private static int pageCount(int capacity, int rowsPerPage) {
+        return (capacity + rowsPerPage - 1) / rowsPerPage;
+    }
+
+    private static int pageRows(int page, int capacity, int rowsPerPage) {
+        return Math.min(rowsPerPage, capacity - page * rowsPerPage);
+    }
+
+    public TransferMatrix ensureCapacity(int stationCount) throws IOException {
+        if (stationCount <= capacity) {
+            return this;
+        }
+        int newCapacity = capacityFor(stationCount, capacity);
+        TransferMatrix grown;
+        Path temp = null;
+        if (path == null) {
+            grown = inMemory(newCapacity);
+        } else {
+            temp = path.resolveSibling(path.getFileName() + ".tmp");
+            grown = create(temp, newCapacity);
+        }
+
+        byte[] row = new byte[capacity];
+        for (int from = 0; from < this.stationCount; from++) {
+            readRow(from, row);
+            grown.writeRow(from, row, this.stationCount);
+        }
+        grown.setStationCount(this.stationCount);
+        grown.setFingerprint(fingerprint);
+        close();
+
+        if (temp == null) {
+            return grown;
+        }
+        grown.close();
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    private void clear() {
+        byte[] row = new byte[0];
+        for (int from = 0; from < capacity; from++) {
+            writeRow(from, row, 0);
+        }
+        stationCount = 0;
+        fingerprint = 0;
+        writeHeader();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getStationCount() {
+        return stationCount;
+    }
+
+    public void setStationCount(int stationCount) {
+        if (stationCount > capacity) {
+            throw new IllegalArgumentException("capacity " + capacity + " is smaller than " + stationCount);
+        }
+        this.stationCount = stationCount;
+        writeHeader();
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
+        writeHeader();
+    }
+
+    public int get(int from, int to) {
+        return pages[from / rowsPerPage].get((from % rowsPerPage) * capacity + to);
+    }
+
+    public void readRow(int from, byte[] row) {
+        pages[from / rowsPerPage].get((from % rowsPerPage) * capacity, row, 0, stationCount);
+    }
+
+    public void writeRow(int from, byte[] row, int length) {
+        ByteBuffer page = pages[from / rowsPerPage];
+        int offset = (from % rowsPerPage) * capacity;
+        page.put(offset, row, 0, length);
+        page.put(offset + length, noRoutes, 0, capacity - length);
+        if (from >= length) {
+            page.put(offset + from, (byte) 0);
+        }
+    }
+
+    private void writeHeader() {
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(8, stationCount);
+        header.putInt(12, capacity);
+        header.putLong(16, fingerprint);
+    }
+
+    public void force() {
+        if (channel == null) {
+            return;
+        }
+        ((MappedByteBuffer) header).force();
+        for (ByteBuffer page : pages) {
+            ((MappedByteBuffer) page).force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            force();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private TrainManager manager;
+    private ConcurrentTrainManager trainManager;
+    private QueryServer server;
+
+    @BeforeEach
+    void start() throws Exception {
+        manager = TrainManager.inMemory();
+        manager.addTrain(new Train("Alpha", List.of("A", "B", "C")));
+        manager.addTrain(new Train("Beta", List.of("C", "D")));
+        trainManager = new ConcurrentTrainManager(manager);
+        server = new QueryServer(trainManager, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    @Test
+    void renameOntoExistingTrainIsRejected() throws Exception {
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/trains?name=Alpha"))
+                .PUT(HttpRequest.BodyPublishers.ofString("beta:X,Y")));
+        assertEquals(409, response.statusCode());
+        assertNotNull(trainManager.findDirectRoute("A", "C"));
+        assertNotNull(trainManager.findDirectRoute("C", "D"));
+
+        response = send(HttpRequest.newBuilder(uri("/trains?name=Alpha"))
+                .PUT(HttpRequest.BodyPublishers.ofString("Gamma:A,C")));
+        assertEquals(200, response.statusCode());
+        assertEquals("Gamma", trainManager.findDirectRoute("A", "C").getName());
+    }
+
+    @Test
+    void journeysRejectsLargeMaxTransfers() throws Exception {
+        assertEquals(400, send(HttpRequest.newBuilder(uri("/journeys?from=A&to=D&maxTransfers=1000000")).GET()).statusCode());
+        assertEquals(400, send(HttpRequest.newBuilder(uri("/journeys?from=A&to=D&maxTransfers=-1")).GET()).statusCode());
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/journeys?from=A&to=D&maxTransfers=1")).GET());
+        assertEquals(200, response.statusCode());
+        assertEquals(1, response.body().lines().count());
+    }
+
+    @Test
+    void hubsValidatesLimitAndReusesTheRanking() throws Exception {
+        assertEquals(400, send(HttpRequest.newBuilder(uri("/hubs?limit=-1")).GET()).statusCode());
+
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/hubs?limit=1")).GET());
+        assertEquals(200, response.statusCode());
+        assertEquals(1, response.body().lines().count());
+        assertEquals(trainManager.snapshot().findHubs(1).get(0), trainManager.snapshot().findHubs(4).get(0));
+        assertSame(trainManager.snapshot().findHubs(1).get(0), manager.findHubs(1).get(0));
+
+        manager.sortByNumberOfStops();
+        assertSame(trainManager.snapshot().findHubs(1).get(0), manager.findHubs(1).get(0));
+    }
+
+    @Test
+    void journeysAreServedFromTheRouteCache() throws Exception {
+        NetworkSnapshot before = trainManager.snapshot();
+        String first = send(HttpRequest.newBuilder(uri("/journeys?from=A&to=D&maxTransfers=2")).GET()).body();
+        String second = send(HttpRequest.newBuilder(uri("/journeys?from=A&to=D&maxTransfers=2")).GET()).body();
+        assertEquals(first, second);
+        assertEquals(1, manager.getRouteCache().getHits());
+        assertEquals(1, manager.getRouteCache().size());
+
+        trainManager.addTrain(new Train("Express", List.of("A", "D")));
+        assertEquals(0, manager.getRouteCache().size());
+        before.findJourneys("A", "D", 2);
+        assertEquals(0, manager.getRouteCache().size());
+        HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/journeys?from=A&to=D&maxTransfers=2")).GET());
+        assertTrue(response.body().contains("Express"), response.body());
+        assertEquals(1, manager.getRouteCache().getHits());
+    }
+
+    @Test
+    void transferTimesAreValidatedAndListed() throws Exception {
+        assertEquals(400, send(HttpRequest.newBuilder(uri("/transfers?station=C&minutes=-3"))
+                .PUT(HttpRequest.BodyPublishers.noBody())).statusCode());
+        assertEquals(400, send(HttpRequest.newBuilder(uri("/transfers?station=C&minutes=soon"))
+                .PUT(HttpRequest.BodyPublishers.noBody())).statusCode());
+        assertEquals(200, send(HttpRequest.newBuilder(uri("/transfers?station=C&minutes=3"))
+                .PUT(HttpRequest.BodyPublishers.noBody())).statusCode());
+        assertEquals("c:3\n", send(HttpRequest.newBuilder(uri("/transfers")).GET()).body());
+        assertEquals(3, manager.getMinimumTransferTimes().get("c"));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,128 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionalTrainManagerTest {
+
+    private static final int MAX_TRANSFERS = 8;
+
+    @Test
+    void crossRegionJourneysMatchTheMergedNetwork() {
+        Random random = new Random(11);
+        TrainManager merged = TrainManager.inMemory();
+        Map<String, TrainManager> managers = new LinkedHashMap<>();
+        for (int region = 0; region < 3; region++) {
+            TrainManager manager = TrainManager.inMemory();
+            for (int t = 0; t < 30; t++) {
+                List<String> stations = random.ints(region * 20, region * 20 + 28).distinct()
+                        .limit(3 + random.nextInt(3)).mapToObj(s -> "S" + s).toList();
+                Train train = new Train("R" + region + "-" + t, stations);
+                manager.addTrain(train);
+                merged.addTrain(train);
+            }
+            managers.put("region" + region, manager);
+        }
+        RegionalTrainManager regional = new RegionalTrainManager(managers);
+        NetworkSnapshot snapshot = NetworkSnapshot.of(merged);
+
+        int compared = 0;
+        int sameRegion = 0;
+        for (int from = 0; from < 68; from++) {
+            for (int to = 0; to < 68; to++) {
+                String start = "S" + from;
+                String end = "S" + to;
+                List<String> startRegions = regional.findRegions(start);
+                List<String> endRegions = regional.findRegions(end);
+                if (startRegions.isEmpty() || endRegions.isEmpty() || from == to) {
+                    continue;
+                }
+                int expected = snapshot.findJourneys(start, end, MAX_TRANSFERS).stream()
+                        .mapToInt(Journey::getTransfers).min().orElse(-1);
+                List<Journey> journeys = regional.findJourneys(start, end, MAX_TRANSFERS);
+                assertEquals(expected, journeys.stream().mapToInt(Journey::getTransfers).min().orElse(-1),
+                        start + " -> " + end);
+                for (Journey journey : journeys) {
+                    assertConnects(journey, start, end);
+                }
+                if (startRegions.stream().anyMatch(endRegions::contains)) {
+                    sameRegion++;
+                    continue;
+                }
+                Journey journey = regional.findCrossRegionJourney(start, end);
+                if (expected == -1) {
+                    assertNull(journey, start + " -> " + end);
+                    continue;
+                }
+                assertNotNull(journey, start + " -> " + end);
+                assertEquals(expected, journey.getTransfers(), start + " -> " + end);
+                assertConnects(journey, start, end);
+                compared++;
+            }
+        }
+        assertTrue(compared > 100, "only " + compared + " cross-region pairs");
+        assertTrue(sameRegion > 100, "only " + sameRegion + " same-region pairs");
+    }
+
+    @Test
+    void bordersFollowRegionChanges() {
+        TrainManager north = TrainManager.inMemory();
+        north.addTrain(new Train("North", List.of("A", "B")));
+        TrainManager south = TrainManager.inMemory();
+        south.addTrain(new Train("South", List.of("C", "D")));
+        Map<String, TrainManager> managers = new LinkedHashMap<>();
+        managers.put("north", north);
+        managers.put("south", south);
+        RegionalTrainManager regional = new RegionalTrainManager(managers);
+
+        assertTrue(regional.getBorderStations().isEmpty());
+        assertNull(regional.findCrossRegionJourney("A", "D"));
+
+        regional.addTrain("south", new Train("Link", List.of("B", "C")));
+        regional.refreshBorders().join();
+        assertEquals(List.of("B"), regional.getBorderStations());
+        Journey journey = regional.findCrossRegionJourney("A", "D");
+        assertNotNull(journey);
+        assertEquals(2, journey.getTransfers());
+        assertConnects(journey, "A", "D");
+
+        regional.removeTrain("south", "Link");
+        regional.refreshBorders().join();
+        assertNull(regional.findCrossRegionJourney("A", "D"));
+    }
+
+    @Test
+    void bestRegionWinsWhenBothServeTheStations() {
+        TrainManager north = TrainManager.inMemory();
+        north.addTrain(new Train("N1", List.of("A", "B")));
+        north.addTrain(new Train("N2", List.of("B", "C")));
+        north.addTrain(new Train("N3", List.of("C", "D")));
+        TrainManager south = TrainManager.inMemory();
+        south.addTrain(new Train("Express", List.of("A", "Q", "D")));
+        Map<String, TrainManager> managers = new LinkedHashMap<>();
+        managers.put("north", north);
+        managers.put("south", south);
+        RegionalTrainManager regional = new RegionalTrainManager(managers);
+
+        List<Journey> journeys = regional.findJourneys("A", "D", 3);
+        assertEquals(1, journeys.size());
+        assertEquals(0, journeys.get(0).getTransfers());
+        assertEquals("Express", journeys.get(0).getLegs().get(0).getTrain().getName());
+    }
+
+    private static void assertConnects(Journey journey, String start, String end) {
+        List<Journey.Leg> legs = journey.getLegs();
+        assertEquals(start, legs.get(0).getFromStation());
+        assertEquals(end, legs.get(legs.size() - 1).getToStation());
+        for (int i = 1; i < legs.size(); i++) {
+            assertEquals(legs.get(i - 1).getToStation(), legs.get(i).getFromStation());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteEngineTest {
+
+    @Test
+    void journeysDoNotDependOnUnrelatedTrains() {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(new Train("T6", List.of("S4", "S8", "S2")));
+        manager.addTrain(new Train("T13", List.of("S1", "S2", "S4", "S0", "S1")));
+        String before = manager.findJourneys("S0", "S8", 5).toString();
+
+        manager.addTrain(new Train("T14", List.of("S3", "S9")));
+        assertEquals(before, manager.findJourneys("S0", "S8", 5).toString());
+    }
+
+    @Test
+    void fewestTrainsMayNeedMoreRoundsThanTrains() {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(new Train("T15", List.of("S9", "S6", "S0", "S2")));
+        manager.addTrain(new Train("T1", List.of("S1", "S0", "S7", "S2", "S6")));
+
+        List<Journey> journeys = manager.findJourneys("S2", "S7", 5);
+        assertEquals(1, journeys.size());
+        assertEquals(List.of("T1", "T15", "T1"), names(journeys.get(0)));
+    }
+
+    @Test
+    void transferMatrixDoesNotDependOnUnrelatedTrains() {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(new Train("T15", List.of("S9", "S6", "S0", "S2")));
+        manager.addTrain(new Train("T1", List.of("S1", "S0", "S7", "S2", "S6")));
+        RouteMatrix matrix = NetworkSnapshot.of(manager).findTransferMatrix(List.of("S2"), List.of("S7"), 5);
+        assertEquals(2, matrix.getTransfers(0, 0));
+
+        manager.addTrain(new Train("T7", List.of("S3", "S5")));
+        matrix = NetworkSnapshot.of(manager).findTransferMatrix(List.of("S2"), List.of("S7"), 5);
+        assertEquals(2, matrix.getTransfers(0, 0));
+    }
+
+    @Test
+    void journeysTradeTransfersForStops() {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(new Train("Slow", List.of("A", "B", "C", "D", "E", "F")));
+        manager.addTrain(new Train("Out", List.of("A", "X", "Y")));
+        manager.addTrain(new Train("Back", List.of("Y", "F")));
+        manager.addTrain(new Train("Hop1", List.of("A", "P")));
+        manager.addTrain(new Train("Hop2", List.of("P", "Q")));
+        manager.addTrain(new Train("Hop3", List.of("Q", "F")));
+
+        List<Journey> journeys = manager.findJourneys("A", "F", 3);
+        assertEquals(2, journeys.size());
+        assertEquals(List.of("Slow"), names(journeys.get(0)));
+        assertEquals(5, journeys.get(0).getNumberOfStops());
+        assertEquals(List.of("Out", "Back"), names(journeys.get(1)));
+        assertEquals(3, journeys.get(1).getNumberOfStops());
+
+        assertEquals(List.of(List.of("Slow")),
+                manager.findJourneys("A", "F", 0).stream().map(RouteEngineTest::names).collect(Collectors.toList()));
+    }
+
+    @Test
+    void randomJourneysConnectAndRespectMaxTransfers() {
+        Random random = new Random(5);
+        TrainManager manager = TrainManager.inMemory();
+        for (int t = 0; t < 40; t++) {
+            List<String> stations = random.ints(0, 30).limit(2 + random.nextInt(5))
+                    .mapToObj(s -> "S" + s).collect(Collectors.toList());
+            manager.addTrain(new Train("T" + t, stations));
+        }
+
+        int checked = 0;
+        for (int maxTransfers = 0; maxTransfers <= 4; maxTransfers++) {
+            for (int from = 0; from < 30; from++) {
+                for (int to = 0; to < 30; to++) {
+                    String start = "S" + from;
+                    String end = "S" + to;
+                    Journey previous = null;
+                    for (Journey journey : manager.findJourneys(start, end, maxTransfers)) {
+                        assertTrue(journey.getTransfers() <= maxTransfers, journey.toString());
+                        assertConnects(journey, start, end);
+                        if (previous != null) {
+                            assertTrue(journey.getTransfers() > previous.getTransfers(), journey.toString());
+                            assertTrue(journey.getNumberOfStops() < previous.getNumberOfStops(), journey.toString());
+                        }
+                        previous = journey;
+                        checked++;
+                    }
+                }
+            }
+        }
+        assertTrue(checked > 1000, "only " + checked + " journeys");
+    }
+
+    @Test
+    void oneTransferRouteUsesTwoDifferentTrains() {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(new Train("Loop", List.of("A", "B", "C", "A", "D")));
+        assertEquals(List.of(), manager.findRouteWithOneTransfer("C", "B"));
+        assertEquals(List.of(), NetworkSnapshot.of(manager).findRouteWithOneTransfer("C", "B"));
+
+        manager.addTrain(new Train("Feeder", List.of("C", "X", "Y")));
+        manager.addTrain(new Train("Link", List.of("Y", "B")));
+        List<String> expected = List.of("Feeder", "Link");
+        assertEquals(expected, manager.findRouteWithOneTransfer("C", "B").stream().map(Train::getName)
+                .collect(Collectors.toList()));
+        assertEquals(expected, NetworkSnapshot.of(manager).findRouteWithOneTransfer("c", "b").stream()
+                .map(Train::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    void snapshotIsReusedUntilTheNetworkChanges() {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(new Train("Alpha", List.of("A", "B")));
+        manager.addTrain(new Train("Beta", List.of("B", "C")));
+        NetworkSnapshot snapshot = manager.snapshot();
+        List<Journey> journeys = snapshot.findJourneys("A", "C", 2);
+
+        assertSame(snapshot, manager.snapshot());
+        assertSame(journeys, manager.snapshot().findJourneys("A", "C", 2));
+        manager.setMinimumTransferTime("B", 5);
+        assertNotSame(snapshot, manager.snapshot());
+        manager.addTrain(new Train("Gamma", List.of("A", "C")));
+        assertEquals(List.of(List.of("Gamma")),
+                manager.snapshot().findJourneys("A", "C", 2).stream().map(RouteEngineTest::names)
+                        .collect(Collectors.toList()));
+    }
+
+    private static void assertConnects(Journey journey, String start, String end) {
+        List<Journey.Leg> legs = journey.getLegs();
+        assertEquals(start, legs.get(0).getFromStation());
+        assertEquals(end, legs.get(legs.size() - 1).getToStation());
+        for (int i = 1; i < legs.size(); i++) {
+            assertEquals(legs.get(i - 1).getToStation(), legs.get(i).getFromStation(), journey.toString());
+        }
+        for (Journey.Leg leg : legs) {
+            assertTrue(leg.getFromIndex() < leg.getToIndex(), journey.toString());
+        }
+    }
+
+    private static List<String> names(Journey journey) {
+        return journey.getTrains().stream().map(Train::getName).collect(Collectors.toList());
+    }
+}
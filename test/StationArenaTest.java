@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class StationArenaTest {
+
+    @Test
+    void trainsShareOneCopyOfEachStation() {
+        Train first = new Train("Alpha", List.of(new String("Shared Station"), "B"));
+        Train second = new Train("Beta", List.of(new String("Shared Station"), "C"));
+        assertSame(first.getStartStation(), second.getStartStation());
+    }
+
+    @Test
+    void stationsOfDiscardedManagersCanBeReclaimed() throws Exception {
+        WeakReference<String> station = addTemporaryTrain();
+        for (int i = 0; i < 50 && station.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(station.get());
+    }
+
+    private static WeakReference<String> addTemporaryTrain() {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(new Train("Alpha", List.of(new String("Temporary Station"), "B")));
+        manager.getRoutingNetwork();
+        return new WeakReference<>(manager.getTrains().get(0).getStartStation());
+    }
+}
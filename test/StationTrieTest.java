@@ -0,0 +1,33 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StationTrieTest {
+
+    @Test
+    void fuzzySuggestionsKeepOnlyTheBestMatches() {
+        List<String> stations = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            stations.add(String.format("Bern %03d", i));
+            stations.add(String.format("Born %03d", i));
+        }
+        stations.add("Bern");
+        StationTrie trie = StationTrie.build(stations);
+
+        assertEquals(List.of("Bern", "Bern 000", "Bern 001"), trie.suggest("bern", 3));
+        assertEquals(List.of("Bern", "Bern 000", "Bern 001", "Bern 002"), trie.suggest("bxrn", 4));
+        assertEquals(List.of("Born 000", "Born 001", "Born 002"), trie.suggest("born", 3));
+    }
+
+    @Test
+    void canonicalizeRejectsAmbiguousMatches() {
+        StationTrie trie = StationTrie.build(List.of("Lyon", "Lyons", "Leeds"));
+        assertEquals("Leeds", trie.canonicalize("LEEDS"));
+        assertEquals("Leeds", trie.canonicalize("Leedz"));
+        assertNull(trie.canonicalize("Lyonx"));
+    }
+}
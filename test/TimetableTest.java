@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimetableTest {
+
+    private static final int MONDAY = 0;
+    private static final int SATURDAY = 5;
+
+    @Test
+    void parsesTimesUpTo47Hours() {
+        assertEquals(8 * 60 + 5, Timetable.parseTime("08:05"));
+        assertEquals(8 * 60 + 5, Timetable.parseTime(" 8:05 "));
+        assertEquals(47 * 60 + 59, Timetable.parseTime("47:59"));
+        assertEquals("25:30", Timetable.formatTime(Timetable.parseTime("25:30")));
+        for (String bad : List.of("48:00", "08:60", "08:5", "0805", "ab:cd", "-1:00", ":30")) {
+            assertThrows(IllegalArgumentException.class, () -> Timetable.parseTime(bad), bad);
+        }
+    }
+
+    @Test
+    void parsesServiceDayMasks() {
+        assertEquals(0b0011111, Timetable.parseDays("MTWTF--"));
+        assertEquals(0b1100000, Timetable.parseDays("-----SS"));
+        assertEquals(Timetable.DAILY, Timetable.parseDays("mtwtfss"));
+        assertEquals("MTWTF--", Timetable.formatDays(Timetable.parseDays("MTWTF--")));
+        for (String bad : List.of("MTWTF-", "TMWTF--", "MTWTF-X")) {
+            assertThrows(IllegalArgumentException.class, () -> Timetable.parseDays(bad), bad);
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> Train.parse("Never|-------", List.of("A|08:00", "B|09:00")));
+    }
+
+    @Test
+    void timetabledTrainsRoundTripThroughText() {
+        Train train = Train.parse("Night|-----S-", List.of("A|23:50", "B|24:30|24:35", "C|25:10"));
+        assertEquals("Night|-----S-:A|23:50,B|24:30|24:35,C|25:10", train.toText());
+        assertThrows(IllegalArgumentException.class, () -> Train.parse("Back", List.of("A|09:00", "B|08:00")));
+        assertThrows(IllegalArgumentException.class, () -> Train.parse("Half", List.of("A|09:00", "B")));
+    }
+
+    @Test
+    void earliestArrivalHonoursTransferTimes() {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(Train.parse("Feeder", List.of("A|08:00", "B|08:30")));
+        manager.addTrain(Train.parse("Tight", List.of("B|08:33", "C|09:00")));
+        manager.addTrain(Train.parse("Later", List.of("B|08:40", "C|09:30")));
+
+        Journey journey = manager.findEarliestArrival("A", "C", MONDAY, Timetable.parseTime("07:30"));
+        assertEquals(List.of("Feeder", "Later"), names(journey));
+        assertEquals(Timetable.parseTime("09:30"), journey.getArrivalTime());
+
+        manager.setMinimumTransferTime("b", 3);
+        journey = manager.findEarliestArrival("A", "C", MONDAY, Timetable.parseTime("07:30"));
+        assertEquals(List.of("Feeder", "Tight"), names(journey));
+        assertEquals(Timetable.parseTime("09:00"), journey.getArrivalTime());
+
+        assertNull(manager.findEarliestArrival("A", "C", MONDAY, Timetable.parseTime("08:01")));
+    }
+
+    @Test
+    void earliestArrivalFollowsServiceDaysAndRunsPastMidnight() {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(Train.parse("Weekday|MTWTF--", List.of("A|09:00", "B|10:00")));
+        manager.addTrain(Train.parse("Weekend|-----SS", List.of("A|07:00", "B|07:30")));
+        manager.addTrain(Train.parse("Night", List.of("A|23:50", "N|24:30")));
+
+        assertEquals(List.of("Weekday"), names(manager.findEarliestArrival("A", "B", MONDAY, 0)));
+        assertEquals(List.of("Weekend"), names(manager.findEarliestArrival("A", "B", SATURDAY, 0)));
+        assertEquals(Timetable.parseTime("24:30"),
+                manager.findEarliestArrival("A", "N", SATURDAY, Timetable.parseTime("23:00")).getArrivalTime());
+    }
+
+    private static List<String> names(Journey journey) {
+        return journey.getTrains().stream().map(Train::getName).collect(Collectors.toList());
+    }
+}
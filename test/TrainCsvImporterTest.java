@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrainCsvImporterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rejectsNamesThatTrainsTxtCannotStore() throws Exception {
+        Path csv = directory.resolve("trips.csv");
+        Files.writeString(csv, String.join("\n",
+                "trip_id,stop_name,stop_sequence,arrival_time,departure_time",
+                "Local,Alpha,1,08:00:00,08:00:00",
+                "Local,Beta,2,08:30:00,08:31:00",
+                "\"Night:Express\",Alpha,1,22:00,22:00",
+                "\"Night:Express\",Beta,2,23:00,23:00",
+                "Coastal,\"Gamma, North\",1,,",
+                "Coastal,Beta,2,,",
+                "Shuttle,\"Delta|Pier\",1,,",
+                "Shuttle,Alpha,2,,",
+                ""));
+
+        TrainCsvImporter.Batch batch = TrainCsvImporter.read(csv);
+        TrainCsvImporter.Report report = batch.getReport();
+        assertEquals(List.of("Local"), batch.getTrains().stream().map(Train::getName).collect(Collectors.toList()));
+        assertEquals(3, report.getRejectedTrips());
+        assertTrue(report.getProblems().stream().anyMatch(p -> p.contains("train name 'Night:Express' contains ':'")));
+        assertTrue(report.getProblems().stream().anyMatch(p -> p.contains("station 'Gamma, North' contains ','")));
+        assertTrue(report.getProblems().stream().anyMatch(p -> p.contains("station 'Delta|Pier' contains '|'")));
+    }
+
+    @Test
+    void importedTrainsRoundTripThroughText() throws Exception {
+        Path csv = directory.resolve("trips.csv");
+        Files.writeString(csv, String.join("\n",
+                "trip_id,stop_name,stop_sequence,arrival_time,departure_time,service_days",
+                "R1,\"Alpha Central\",1,08:00:00,08:05:00,MTWTF--",
+                "R1,Beta,2,09:00:00,09:00:00,MTWTF--",
+                "R2,Beta,1,,,",
+                "R2,Gamma,2,,,",
+                ""));
+
+        TrainManager manager = TrainManager.inMemory();
+        TrainCsvImporter.Report report = manager.importFromCsv(csv);
+        assertEquals(2, report.getTrains());
+        for (Train train : manager.getTrains()) {
+            String[] parts = train.toText().split(":", 2);
+            Train parsed = Train.parse(parts[0], List.of(parts[1].split(",")));
+            assertEquals(train.toText(), parsed.toText());
+        }
+    }
+}
@@ -0,0 +1,35 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TrainMetricsTest {
+
+    @Test
+    void maxIsTheLargestRecordedLatency() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.record(1_000_001);
+        histogram.record(900_000);
+        assertEquals(1_000_001, histogram.getMaxNanos());
+
+        histogram.reset();
+        assertEquals(0, histogram.getMaxNanos());
+    }
+
+    @Test
+    void rejectedUpdateCountsAsError() {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(new Train("Alpha", List.of("A", "B")));
+        manager.addTrain(new Train("Beta", List.of("B", "C")));
+
+        assertFalse(manager.updateTrain("Alpha", new Train("BETA", List.of("A", "C"))));
+        TrainMetrics metrics = manager.getMetrics();
+        assertEquals(1, metrics.getErrors(TrainMetrics.Operation.UPDATE_TRAIN));
+        assertEquals(1, metrics.getCount(TrainMetrics.Operation.UPDATE_TRAIN));
+        assertEquals(metrics.getLatency(TrainMetrics.Operation.UPDATE_TRAIN).getMaxNanos() / 1e3,
+                metrics.getMaxMicros().get("updateTrain"));
+    }
+}
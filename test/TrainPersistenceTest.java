@@ -0,0 +1,192 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrainPersistenceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rejectedUpdateSurvivesJournalReplay() {
+        String name = directory.resolve("network").toString();
+        TrainManager manager = new TrainManager(name);
+        manager.addTrain(new Train("Alpha", List.of("A", "B", "C")));
+        manager.addTrain(new Train("Beta", List.of("C", "D")));
+
+        assertFalse(manager.updateTrain("Alpha", new Train("beta", List.of("X", "Y"))));
+        assertEquals(List.of("Alpha:A,B,C", "Beta:C,D"), texts(manager));
+        manager.close();
+
+        TrainManager reopened = new TrainManager(name);
+        assertEquals(List.of("Alpha:A,B,C", "Beta:C,D"), texts(reopened));
+        reopened.close();
+    }
+
+    @Test
+    void snapshotAndJournalRoundTrip() throws Exception {
+        String name = directory.resolve("network").toString();
+        TrainManager manager = new TrainManager(name);
+        manager.addTrain(new Train("Alpha", List.of("A", "B", "C")));
+        manager.addTrain(new Train("Beta", List.of("C", "D")));
+        manager.saveToFile();
+        assertTrue(Files.size(Path.of(name + ".bin")) > 0);
+
+        manager.addTrain(new Train("Gamma", List.of("D", "E")));
+        assertTrue(manager.updateTrain("Gamma", new Train("Delta|MTWTF--", List.of("D|08:00", "E|09:15"))));
+        assertTrue(manager.updateTrain("alpha", new Train("Alpha", List.of("A", "C"))));
+        manager.removeTrain("Beta");
+        List<String> expected = texts(manager);
+        manager.close();
+
+        TrainManager reopened = new TrainManager(name);
+        assertEquals(expected, texts(reopened));
+        reopened.saveToFile();
+        reopened.close();
+
+        TrainManager compacted = new TrainManager(name);
+        assertEquals(expected, texts(compacted));
+        compacted.close();
+    }
+
+    @Test
+    void transferMatrixIsReusedAfterRestart() {
+        String name = directory.resolve("network").toString();
+        TrainManager manager = new TrainManager(name);
+        manager.addTrain(new Train("Alpha", List.of("A", "B")));
+        manager.addTrain(new Train("Beta", List.of("B", "C")));
+        manager.addTrain(new Train("Gamma", List.of("C", "D")));
+        manager.addTrain(new Train("Island", List.of("X", "Y")));
+        assertEquals(3, manager.getMinimumTrains("A", "D"));
+        manager.close();
+        assertTrue(Files.exists(Path.of(name + ".matrix")));
+
+        TrainManager reopened = new TrainManager(name);
+        assertEquals(3, reopened.getMinimumTrains("A", "D"));
+        assertEquals(1, reopened.getMinimumTrains("B", "C"));
+        assertEquals(TransferMatrix.NO_ROUTE, reopened.getMinimumTrains("A", "Y"));
+        reopened.close();
+    }
+
+    @Test
+    void textLoadReportsMalformedLines() throws Exception {
+        String name = directory.resolve("network").toString();
+        Files.writeString(Path.of(name + ".txt"), "Alpha:A,B\nBeta;C;D\n\nGamma:\n");
+        TrainManager manager = new TrainManager(name);
+        TrainFileLoader.Report report = manager.getLastLoadReport();
+        assertEquals(1, report.getTrains());
+        assertEquals(2, report.getMalformedLines());
+        assertEquals(2, report.getProblems().size());
+        assertTrue(report.getProblems().get(0).startsWith("line 2:"), report.getProblems().get(0));
+        manager.close();
+    }
+
+    @Test
+    void chunkedImportSurvivesExitBeforeSave() {
+        String name = directory.resolve("network").toString();
+        TrainManager manager = new TrainManager(name);
+        List<Train> trains = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            trains.add(new Train("Trip " + i, List.of("S" + i, "S" + (i + 1))));
+        }
+        manager.addTrains(trains.subList(0, 6), false);
+        assertEquals(List.of(trains.get(2)), manager.addTrains(List.of(trains.get(2)), false));
+        manager.close();
+
+        TrainManager reopened = new TrainManager(name);
+        assertEquals(trains.subList(0, 6), reopened.getTrains());
+        assertEquals(6, reopened.getMinimumTrains("S0", "S6"));
+        reopened.close();
+    }
+
+    @Test
+    void textExportImportRoundTrip() throws Exception {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(new Train("Alpha", List.of("A", "B")));
+        manager.addTrain(Train.parse("Night|-----S-", List.of("B|23:50", "C|24:30")));
+        Path text = directory.resolve("export.txt");
+        manager.exportToText(text);
+
+        TrainManager copy = TrainManager.inMemory();
+        copy.addTrain(new Train("alpha", List.of("X", "Y")));
+        TrainFileLoader.Report report = copy.importFromText(text);
+        assertEquals(1, report.getTrains());
+        assertEquals(1, report.getMalformedLines());
+        assertEquals(List.of("alpha:X,Y", "Night|-----S-:B|23:50,C|24:30"),
+                copy.getTrains().stream().map(Train::toText).collect(Collectors.toList()));
+    }
+
+    @Test
+    void minimumTransferTimesSurviveRestart() {
+        String name = directory.resolve("network").toString();
+        TrainManager manager = new TrainManager(name);
+        assertThrows(IllegalArgumentException.class, () -> manager.setMinimumTransferTime("Hub", -1));
+        manager.setMinimumTransferTime("Hub", 2);
+        manager.setMinimumTransferTime("Port: North", 12);
+        manager.close();
+
+        TrainManager reopened = new TrainManager(name);
+        assertEquals(Map.of("hub", 2, "port: north", 12), reopened.getMinimumTransferTimes());
+        reopened.close();
+    }
+
+    @Test
+    void incrementalTransferMatrixMatchesFreshBuild() {
+        TrainManager manager = TrainManager.inMemory();
+        manager.addTrain(new Train("T15", List.of("S9", "S6", "S0", "S2")));
+        manager.addTrain(new Train("T1", List.of("S1", "S0", "S7", "S2", "S6")));
+        manager.addTrain(new Train("T7", List.of("S3", "S5")));
+        assertSameMinimumTrains(manager);
+        manager.removeTrain("T7");
+        assertSameMinimumTrains(manager);
+
+        Random random = new Random(2332);
+        List<String> names = new ArrayList<>();
+        for (int step = 0; step < 60; step++) {
+            if (!names.isEmpty() && random.nextInt(3) == 0) {
+                manager.removeTrain(names.remove(random.nextInt(names.size())));
+            } else {
+                List<String> stations = random.ints(0, 10).limit(2 + random.nextInt(4))
+                        .mapToObj(s -> "S" + s).collect(Collectors.toList());
+                String name = "R" + step;
+                manager.addTrain(new Train(name, stations));
+                names.add(name);
+            }
+            assertSameMinimumTrains(manager);
+        }
+    }
+
+    private static void assertSameMinimumTrains(TrainManager manager) {
+        TrainManager fresh = TrainManager.inMemory();
+        for (Train train : manager.getTrains()) {
+            fresh.addTrain(train);
+        }
+        for (int from = 0; from < 10; from++) {
+            for (int to = 0; to < 10; to++) {
+                String start = "S" + from;
+                String end = "S" + to;
+                if (fresh.findTrainsByStation(start).isEmpty() || fresh.findTrainsByStation(end).isEmpty()) {
+                    continue;
+                }
+                assertEquals(fresh.getMinimumTrains(start, end), manager.getMinimumTrains(start, end),
+                        start + " -> " + end + " after " + texts(manager));
+            }
+        }
+    }
+
+    private static List<String> texts(TrainManager manager) {
+        return manager.getTrains().stream().map(Train::toText).sorted().collect(Collectors.toList());
+    }
+}